@@ -0,0 +1,53 @@
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded generator of synthetic batches, shared by the tests, the performance gate and the benchmarks. Equal seeds and
+ * parameters always give equal batches.
+ */
+public final class BlisterDataGenerator {
+
+    private static final int MAX_REQUESTED_AMOUNT = 50;
+    private static final int MAX_LONGTIME_VALUE = 100;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2019, 1, 1);
+
+    private final Random random;
+
+    public BlisterDataGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param orderCount number of orders in the batch
+     * @param capacityShare new and old blisters available as share of the requested amount of all orders, below 1 not
+     * all orders can be fulfilled
+     * @param nullLongtimeShare share of orders without longtime value
+     * @param dateSpreadDays number of days the ordering dates are spread over
+     */
+    public OrderOptimizer.BlisterData generate(int orderCount, double capacityShare, double nullLongtimeShare,
+            int dateSpreadDays) {
+        List<OrderOptimizer.Order> orders = new ArrayList<>(orderCount);
+        long totalRequestedAmount = 0;
+        for (int index = 0; index < orderCount; index++) {
+            int requestedAmount = 1 + random.nextInt(MAX_REQUESTED_AMOUNT);
+            Long longtime = random.nextDouble() < nullLongtimeShare ? null
+                    : (long) random.nextInt(MAX_LONGTIME_VALUE + 1);
+            Date orderingDate = toDate(FIRST_DATE.plusDays(random.nextInt(Math.max(dateSpreadDays, 1))));
+            orders.add(new OrderOptimizer.Order((long) index, (double) requestedAmount, orderingDate, longtime, null,
+                    null, null));
+            totalRequestedAmount += requestedAmount;
+        }
+
+        int capacity = (int) Math.round(totalRequestedAmount * capacityShare);
+        int newAmount = capacity / 2;
+        return new OrderOptimizer.BlisterData(newAmount, capacity - newAmount, orders);
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,58 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the primitive problem and the MIP of a batch, at the sizes of our depots.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelBuildBenchmark {
+
+    private static final long SEED = 42L;
+
+    @Param({"20", "500", "5000"})
+    private int orderCount;
+
+    @Param({"0.8"})
+    private double capacityShare;
+
+    @Param({"0.5"})
+    private double nullLongtimeShare;
+
+    @Param({"30"})
+    private int dateSpreadDays;
+
+    @Param({"BIG_M", "BOUNDED_NEW_COUNT"})
+    private String formulation;
+
+    private Object backend;
+    private Object blisterData;
+
+    @Setup
+    public void setUp() {
+        backend = OptimizerHandles.newBackend(formulation);
+        blisterData = OptimizerHandles.generate(SEED, orderCount, capacityShare, nullLongtimeShare, dateSpreadDays);
+    }
+
+    @Benchmark
+    public Object buildModel() {
+        return OptimizerHandles.buildMipModel(backend, blisterData);
+    }
+}
@@ -0,0 +1,338 @@
+package benchmark;
+
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Access to the optimizer from the benchmarks. JMH does not accept benchmarks in the default package and classes of
+ * the default package can not be imported, so the optimizer and its package-private phases are reached through method
+ * handles. The handles are constants whose types are erased to {@code Object}, and are called with
+ * {@code invokeExact}, so the JIT inlines them like direct calls instead of adapting the arguments on every call.
+ */
+final class OptimizerHandles {
+
+    private static final MethodHandle NEW_GENERATOR;
+    private static final MethodHandle GENERATE;
+    private static final MethodHandle NEW_BLISTER_DATA;
+    private static final MethodHandle NEW_AMOUNT_OF;
+    private static final MethodHandle OLD_AMOUNT_OF;
+    private static final MethodHandle ORDERS_OF;
+    private static final MethodHandle SORTED_BY_DATE;
+    private static final MethodHandle NEW_BACKEND;
+    private static final MethodHandle SET_FORMULATION;
+    private static final MethodHandle FORMULATION_OF;
+    private static final MethodHandle PROBLEM_OF;
+    private static final MethodHandle BUILD_MIP_MODEL;
+    private static final MethodHandle MODEL_OF;
+    private static final MethodHandle EXTRACT;
+    private static final MethodHandle NEW_OPTIMIZER;
+    private static final MethodHandle SET_OPTIMIZER_FORMULATION;
+    private static final MethodHandle SET_ENGINE;
+    private static final MethodHandle ENGINE_OF;
+    private static final MethodHandle NEW_DYNAMIC_PROGRAMMING_SOLVER;
+    private static final MethodHandle SUPPORTS;
+    private static final MethodHandle ALLOCATE;
+    private static final MethodHandle OPEN_SESSION;
+    private static final MethodHandle SESSION_ORDERS;
+    private static final MethodHandle ADD_ORDER;
+    private static final MethodHandle REMOVE_ORDER;
+    private static final MethodHandle OPTIMIZE_SESSION;
+
+    static {
+        try {
+            Class<?> generator = Class.forName("BlisterDataGenerator");
+            Class<?> backend = Class.forName("OjAlgoBackend");
+            Class<?> blisterData = Class.forName("OrderOptimizer$BlisterData");
+            Class<?> formulation = Class.forName("OrderOptimizer$Formulation");
+            Class<?> engine = Class.forName("OrderOptimizer$Engine");
+            Class<?> dynamicProgrammingSolver = Class.forName("DynamicProgrammingSolver");
+            Class<?> problem = Class.forName("BlisterProblem");
+            Class<?> mipModel = Class.forName("OjAlgoBackend$MipModel");
+            Class<?> optimizer = Class.forName("OrderOptimizer");
+            Class<?> order = Class.forName("OrderOptimizer$Order");
+            Class<?> session = Class.forName("OptimizationSession");
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            NEW_GENERATOR = erase(lookup.unreflectConstructor(generator.getConstructor(long.class)));
+            GENERATE = erase(lookup.unreflect(generator.getMethod("generate", int.class, double.class, double.class,
+                    int.class)));
+            NEW_BLISTER_DATA = erase(lookup.unreflectConstructor(blisterData.getConstructor(int.class, int.class,
+                    Collection.class)));
+            NEW_AMOUNT_OF = erase(lookup.unreflect(blisterData.getMethod("getNewAmount")));
+            OLD_AMOUNT_OF = erase(lookup.unreflect(blisterData.getMethod("getOldAmount")));
+            ORDERS_OF = erase(lookup.unreflect(blisterData.getMethod("getOrders")));
+            SORTED_BY_DATE = erase(lookup.unreflect(accessible(problem.getDeclaredMethod("sortedByDate",
+                    Collection.class))));
+            NEW_BACKEND = erase(lookup.unreflectConstructor(accessible(backend.getConstructor())));
+            SET_FORMULATION = erase(lookup.unreflect(accessible(backend.getMethod("setFormulation", formulation))));
+            FORMULATION_OF = erase(lookup.unreflect(accessible(formulation.getMethod("valueOf", String.class))));
+            PROBLEM_OF = erase(lookup.unreflect(accessible(problem.getDeclaredMethod("of", blisterData))));
+            BUILD_MIP_MODEL = erase(lookup.unreflect(accessible(backend.getDeclaredMethod("buildMipModel",
+                    problem))));
+            MODEL_OF = erase(lookup.unreflectGetter(accessible(mipModel.getDeclaredField("model"))));
+            EXTRACT = erase(lookup.unreflect(accessible(mipModel.getDeclaredMethod("extract",
+                    Optimisation.Result.class))));
+            NEW_OPTIMIZER = erase(lookup.unreflectConstructor(optimizer.getConstructor()));
+            SET_OPTIMIZER_FORMULATION = erase(lookup.unreflect(optimizer.getMethod("setFormulation", formulation)));
+            SET_ENGINE = erase(lookup.unreflect(optimizer.getMethod("setEngine", engine)));
+            ENGINE_OF = erase(lookup.unreflect(engine.getMethod("valueOf", String.class)));
+            NEW_DYNAMIC_PROGRAMMING_SOLVER = erase(lookup.unreflectConstructor(accessible(
+                    dynamicProgrammingSolver.getDeclaredConstructor())));
+            SUPPORTS = erase(lookup.unreflect(accessible(dynamicProgrammingSolver.getMethod("supports", problem))));
+            ALLOCATE = erase(lookup.unreflect(optimizer.getMethod("allocate", blisterData)));
+            OPEN_SESSION = erase(lookup.unreflect(optimizer.getMethod("openSession", blisterData)));
+            SESSION_ORDERS = erase(lookup.unreflect(session.getMethod("getOrders")));
+            ADD_ORDER = erase(lookup.unreflect(session.getMethod("addOrder", order)));
+            REMOVE_ORDER = erase(lookup.unreflect(session.getMethod("removeOrder", order)));
+            OPTIMIZE_SESSION = erase(lookup.unreflect(session.getMethod("optimize")));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private OptimizerHandles() {
+    }
+
+    /**
+     * @return an {@code OrderOptimizer.BlisterData}, see {@code BlisterDataGenerator}
+     */
+    static Object generate(long seed, int orderCount, double capacityShare, double nullLongtimeShare,
+            int dateSpreadDays) {
+        try {
+            Object generator = (Object) NEW_GENERATOR.invokeExact(seed);
+            return (Object) GENERATE.invokeExact(generator, orderCount, capacityShare, nullLongtimeShare,
+                    dateSpreadDays);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @param orders {@code OrderOptimizer.Order}s
+     * @return an {@code OrderOptimizer.BlisterData}
+     */
+    static Object newBlisterData(int newAmount, int oldAmount, List<?> orders) {
+        try {
+            return (Object) NEW_BLISTER_DATA.invokeExact(newAmount, oldAmount, (Collection<?>) orders);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static int newAmountOf(Object blisterData) {
+        try {
+            return (int) NEW_AMOUNT_OF.invokeExact(blisterData);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static int oldAmountOf(Object blisterData) {
+        try {
+            return (int) OLD_AMOUNT_OF.invokeExact(blisterData);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return the orders of the batch sorted by date
+     */
+    static List<?> sortedOrdersOf(Object blisterData) {
+        try {
+            return (List<?>) SORTED_BY_DATE.invokeExact((Collection<?>) ORDERS_OF.invokeExact(blisterData));
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @param formulation name of an {@code OrderOptimizer.Formulation}
+     */
+    static Object newBackend(String formulation) {
+        try {
+            Object backend = (Object) NEW_BACKEND.invokeExact();
+            SET_FORMULATION.invokeExact(backend, (Object) FORMULATION_OF.invokeExact(formulation));
+            return backend;
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return the {@code OjAlgoBackend.MipModel} of the batch
+     */
+    static Object buildMipModel(Object backend, Object blisterData) {
+        try {
+            return (Object) BUILD_MIP_MODEL.invokeExact(backend, (Object) PROBLEM_OF.invokeExact(blisterData));
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static ExpressionsBasedModel modelOf(Object mipModel) {
+        try {
+            return (ExpressionsBasedModel) MODEL_OF.invokeExact(mipModel);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return the {@code Allocation} read from the solution of the model
+     */
+    static Object extract(Object mipModel, Optimisation.Result result) {
+        try {
+            return (Object) EXTRACT.invokeExact(mipModel, result);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @param formulation name of an {@code OrderOptimizer.Formulation}
+     * @return an {@code OrderOptimizer} with the MIP engine and the exact profile
+     */
+    static Object newOptimizer(String formulation) {
+        try {
+            Object optimizer = (Object) NEW_OPTIMIZER.invokeExact();
+            SET_OPTIMIZER_FORMULATION.invokeExact(optimizer, (Object) FORMULATION_OF.invokeExact(formulation));
+            return optimizer;
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @param formulation name of an {@code OrderOptimizer.Formulation}
+     * @param engine name of an {@code OrderOptimizer.Engine}
+     * @return an {@code OrderOptimizer} with the engine and the exact profile
+     */
+    static Object newOptimizer(String formulation, String engine) {
+        try {
+            Object optimizer = newOptimizer(formulation);
+            SET_ENGINE.invokeExact(optimizer, (Object) ENGINE_OF.invokeExact(engine));
+            return optimizer;
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return true if the decision table of the batch is small enough for the {@code DYNAMIC_PROGRAMMING} engine,
+     * which otherwise falls back to the MIP
+     */
+    static boolean supportsDynamicProgramming(Object blisterData) {
+        try {
+            return (boolean) SUPPORTS.invokeExact((Object) NEW_DYNAMIC_PROGRAMMING_SOLVER.invokeExact(),
+                    (Object) PROBLEM_OF.invokeExact(blisterData));
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return the {@code Allocation} of the batch, solved from scratch
+     */
+    static Object allocate(Object optimizer, Object blisterData) {
+        try {
+            return (Object) ALLOCATE.invokeExact(optimizer, blisterData);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return an {@code OptimizationSession} of the batch
+     */
+    static Object openSession(Object optimizer, Object blisterData) {
+        try {
+            return (Object) OPEN_SESSION.invokeExact(optimizer, blisterData);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return the orders of the session sorted by date
+     */
+    static List<?> ordersOf(Object session) {
+        try {
+            return (List<?>) SESSION_ORDERS.invokeExact(session);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static void addOrder(Object session, Object order) {
+        try {
+            ADD_ORDER.invokeExact(session, order);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static boolean removeOrder(Object session, Object order) {
+        try {
+            return (boolean) REMOVE_ORDER.invokeExact(session, order);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return the {@code Allocation} of the current state of the session
+     */
+    static Object optimize(Object session) {
+        try {
+            return (Object) OPTIMIZE_SESSION.invokeExact(session);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static <T extends AccessibleObject> T accessible(T member) {
+        member.setAccessible(true);
+        return member;
+    }
+
+    /**
+     * @return the handle with every parameter and return type of a class of the optimizer replaced by {@code Object}
+     */
+    private static MethodHandle erase(MethodHandle handle) {
+        MethodType type = handle.type();
+        for (int index = 0; index < type.parameterCount(); index++) {
+            if (isOptimizerClass(type.parameterType(index))) {
+                type = type.changeParameterType(index, Object.class);
+            }
+        }
+        if (isOptimizerClass(type.returnType())) {
+            type = type.changeReturnType(Object.class);
+        }
+        return handle.asType(type);
+    }
+
+    /**
+     * @return true for the classes of the default package, whose names have no dots
+     */
+    private static boolean isOptimizerClass(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && type.getName().indexOf('.') < 0;
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        throw new IllegalStateException(e);
+    }
+}
@@ -0,0 +1,97 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures re-optimizing a batch whose oldest order was fulfilled and replaced by a new one, once in a session which
+ * keeps its model and once by allocating the batch from scratch. The batch is a window sliding over orders sorted by
+ * date, both benchmarks solve the same sequence of windows with the same formulation. At the end of the orders the
+ * window starts over, the session is opened again then.
+ * <p>
+ * Windows of more orders, or of the {@code BIG_M} formulation, regularly take ojalgo minutes to solve.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionBenchmark {
+
+    private static final long SEED = 42L;
+    /**
+     * Number of windows in the orders.
+     */
+    private static final int WINDOWS = 4;
+
+    @Param({"5", "10"})
+    private int orderCount;
+
+    @Param({"0.8"})
+    private double capacityShare;
+
+    @Param({"0.5"})
+    private double nullLongtimeShare;
+
+    @Param({"30"})
+    private int dateSpreadDays;
+
+    @Param({"BOUNDED_NEW_COUNT"})
+    private String formulation;
+
+    private Object optimizer;
+    private List<?> orders;
+    private int newAmount;
+    private int oldAmount;
+    private Object session;
+    private int sessionStart;
+    private int scratchStart;
+
+    @Setup
+    public void setUp() {
+        optimizer = OptimizerHandles.newOptimizer(formulation);
+        Object blisterData = OptimizerHandles.generate(SEED, orderCount * WINDOWS, capacityShare, nullLongtimeShare,
+                dateSpreadDays * WINDOWS);
+        orders = OptimizerHandles.sortedOrdersOf(blisterData);
+        newAmount = OptimizerHandles.newAmountOf(blisterData) / WINDOWS;
+        oldAmount = OptimizerHandles.oldAmountOf(blisterData) / WINDOWS;
+    }
+
+    @Benchmark
+    public Object slideWindowInSession() {
+        if (session == null || sessionStart + orderCount == orders.size()) {
+            sessionStart = 0;
+            session = OptimizerHandles.openSession(optimizer, window(0));
+        } else {
+            OptimizerHandles.removeOrder(session, orders.get(sessionStart));
+            OptimizerHandles.addOrder(session, orders.get(sessionStart + orderCount));
+            sessionStart++;
+        }
+        return OptimizerHandles.optimize(session);
+    }
+
+    @Benchmark
+    public Object allocateWindowFromScratch() {
+        if (scratchStart + orderCount > orders.size()) {
+            scratchStart = 0;
+        }
+        return OptimizerHandles.allocate(optimizer, window(scratchStart++));
+    }
+
+    private Object window(int start) {
+        return OptimizerHandles.newBlisterData(newAmount, oldAmount, orders.subList(start, start + orderCount));
+    }
+}
@@ -0,0 +1,137 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ojalgo.optimisation.Optimisation;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures solving the MIP and extracting the allocation from its solution, and allocating batches at the sizes of our
+ * depots with the engines which scale to them. The default MIP batches are small since the solve time grows steeply
+ * with the number of orders, larger ones can be given on the command line, e.g. {@code -p orderCount=40}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    private static final long SEED = 42L;
+
+    @Benchmark
+    public Optimisation.Result solve(UnsolvedModel unsolvedModel) {
+        return OptimizerHandles.modelOf(unsolvedModel.mipModel).maximise();
+    }
+
+    @Benchmark
+    public Object extract(MipBatch batch) {
+        return OptimizerHandles.extract(batch.solvedModel, batch.solvedResult);
+    }
+
+    @Benchmark
+    public Object allocate(EngineBatch batch) {
+        return OptimizerHandles.allocate(batch.optimizer, batch.blisterData);
+    }
+
+    @State(Scope.Benchmark)
+    public static class MipBatch {
+
+        @Param({"10", "20"})
+        private int orderCount;
+
+        @Param({"0.8"})
+        private double capacityShare;
+
+        @Param({"0.5"})
+        private double nullLongtimeShare;
+
+        @Param({"30"})
+        private int dateSpreadDays;
+
+        @Param({"BOUNDED_NEW_COUNT"})
+        private String formulation;
+
+        private Object backend;
+        private Object blisterData;
+        private Object solvedModel;
+        private Optimisation.Result solvedResult;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            backend = OptimizerHandles.newBackend(formulation);
+            blisterData = OptimizerHandles.generate(SEED, orderCount, capacityShare, nullLongtimeShare,
+                    dateSpreadDays);
+            solvedModel = OptimizerHandles.buildMipModel(backend, blisterData);
+            solvedResult = OptimizerHandles.modelOf(solvedModel).maximise();
+        }
+    }
+
+    /**
+     * A fresh model for every solve, the solver presolves and therefore changes the model.
+     */
+    @State(Scope.Thread)
+    public static class UnsolvedModel {
+        private Object mipModel;
+
+        @Setup(Level.Invocation)
+        public void setUp(MipBatch batch) {
+            mipModel = OptimizerHandles.buildMipModel(batch.backend, batch.blisterData);
+        }
+    }
+
+    /**
+     * A batch of a depot allocated by the engine. The decision table of {@code DYNAMIC_PROGRAMMING} grows with the
+     * capacities, which are halved for it until the table holds them, otherwise it would fall back to the MIP.
+     */
+    @State(Scope.Benchmark)
+    public static class EngineBatch {
+
+        @Param({"500", "5000"})
+        private int orderCount;
+
+        @Param({"DYNAMIC_PROGRAMMING", "LAGRANGIAN", "AUTOMATIC"})
+        private String engine;
+
+        @Param({"0.8"})
+        private double capacityShare;
+
+        @Param({"0.5"})
+        private double nullLongtimeShare;
+
+        @Param({"30"})
+        private int dateSpreadDays;
+
+        @Param({"BOUNDED_NEW_COUNT"})
+        private String formulation;
+
+        private Object optimizer;
+        private Object blisterData;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            optimizer = OptimizerHandles.newOptimizer(formulation, engine);
+            blisterData = OptimizerHandles.generate(SEED, orderCount, capacityShare, nullLongtimeShare,
+                    dateSpreadDays);
+            if ("DYNAMIC_PROGRAMMING".equals(engine)) {
+                List<?> orders = OptimizerHandles.sortedOrdersOf(blisterData);
+                while (!OptimizerHandles.supportsDynamicProgramming(blisterData)) {
+                    blisterData = OptimizerHandles.newBlisterData(OptimizerHandles.newAmountOf(blisterData) / 2,
+                            OptimizerHandles.oldAmountOf(blisterData) / 2, orders);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+import org.ojalgo.optimisation.Optimisation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable result of one solve. Index {@code i} belongs to the {@code i}-th oldest order of the batch, see
+ * {@link #getOrders()}, or to row {@link #getRow(int)} of a {@link ColumnarBlisterData}. The result holds no reference
+ * to the model it was solved with and does not touch the orders, so the same orders may be solved in several
+ * scenarios at once.
+ */
+public final class Allocation {
+
+    private final List<OrderOptimizer.Order> orders;
+    private final int[] rows;
+    private final boolean[] enabled;
+    private final int[] newAmounts;
+    private final int[] oldAmounts;
+    private final double objective;
+    private final Status status;
+    private final double upperBound;
+
+    private Allocation(List<OrderOptimizer.Order> orders, int[] rows, boolean[] enabled, int[] newAmounts,
+            int[] oldAmounts, double objective, Status status, double upperBound) {
+        this.orders = orders;
+        this.rows = rows;
+        this.enabled = enabled;
+        this.newAmounts = newAmounts;
+        this.oldAmounts = oldAmounts;
+        this.objective = objective;
+        this.status = status;
+        this.upperBound = upperBound;
+    }
+
+    /**
+     * @param newAmounts new blisters per order index, {@link BlisterProblem#DISABLED} for orders which are not
+     * fulfilled
+     */
+    public static Allocation of(BlisterProblem problem, int[] newAmounts, Status status) {
+        return of(problem, newAmounts, status,
+                status == Status.OPTIMAL ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @param upperBound proven upper bound of the objective, infinite if unknown
+     */
+    public static Allocation of(BlisterProblem problem, int[] newAmounts, Status status, double upperBound) {
+        int size = problem.size();
+        boolean[] enabled = new boolean[size];
+        int[] compactNewAmounts = new int[size];
+        int[] oldAmounts = new int[size];
+        for (int index = 0; index < size; index++) {
+            if (newAmounts[index] == BlisterProblem.DISABLED) {
+                continue;
+            }
+            enabled[index] = true;
+            compactNewAmounts[index] = newAmounts[index];
+            oldAmounts[index] = problem.getRequestedAmount(index) - newAmounts[index];
+        }
+        double objective = problem.objectiveOf(newAmounts);
+        return new Allocation(Collections.emptyList(), rowsOf(problem), enabled, compactNewAmounts, oldAmounts,
+                objective, status, Math.max(upperBound, objective));
+    }
+
+    /**
+     * @return the rows of the orders in their {@link ColumnarBlisterData}, null if the orders are given as objects
+     */
+    private static int[] rowsOf(BlisterProblem problem) {
+        if (problem.size() == 0 || !problem.isColumnar()) {
+            return null;
+        }
+        int[] rows = new int[problem.size()];
+        for (int index = 0; index < rows.length; index++) {
+            rows[index] = problem.getRow(index);
+        }
+        return rows;
+    }
+
+    Allocation withUpperBound(double upperBound) {
+        return new Allocation(orders, rows, enabled, newAmounts, oldAmounts, objective, status,
+                Math.max(upperBound, objective));
+    }
+
+    /**
+     * @return the allocation for the rows of an equal batch, sharing the arrays of this one; not bound to any orders
+     */
+    Allocation withRowsOf(BlisterProblem problem) {
+        checkSize(problem.size());
+        return new Allocation(Collections.emptyList(), rowsOf(problem), enabled, newAmounts, oldAmounts, objective,
+                status, upperBound);
+    }
+
+    /**
+     * @param sortedByDate the orders of the batch, see {@link BlisterProblem#sortedByDate}
+     * @return the allocation bound to the orders, sharing the arrays of this one
+     */
+    Allocation withOrders(List<OrderOptimizer.Order> sortedByDate) {
+        checkSize(sortedByDate.size());
+        return new Allocation(Collections.unmodifiableList(sortedByDate), null, enabled, newAmounts, oldAmounts,
+                objective, status, upperBound);
+    }
+
+    private void checkSize(int size) {
+        if (size != size()) {
+            throw new IllegalArgumentException("Allocation of " + size() + " orders can not be used for " + size
+                    + " orders");
+        }
+    }
+
+    /**
+     * Copies the allocation to the orders, for callers which read it from {@link OrderOptimizer.Order}.
+     */
+    void assignOrders() {
+        // Columnar batches have no order objects
+        for (int index = 0; index < orders.size(); index++) {
+            orders.get(index).assign(enabled[index], newAmounts[index]);
+        }
+    }
+
+    static Status statusOf(Optimisation.State state) {
+        return state.isOptimal() ? Status.OPTIMAL : Status.FEASIBLE;
+    }
+
+    public int size() {
+        return enabled.length;
+    }
+
+    /**
+     * @return the orders of the batch sorted by date, empty for a {@link ColumnarBlisterData} and for an allocation
+     * returned by a {@link SolverBackend} itself
+     */
+    public List<OrderOptimizer.Order> getOrders() {
+        return orders;
+    }
+
+    public OrderOptimizer.Order getOrder(int index) {
+        return orders.get(index);
+    }
+
+    /**
+     * @return the row of the order in its {@link ColumnarBlisterData}, the index itself if the orders are given as
+     * objects
+     */
+    public int getRow(int index) {
+        return rows != null ? rows[index] : index;
+    }
+
+    public boolean isEnabled(int index) {
+        return enabled[index];
+    }
+
+    /**
+     * @return the new blisters of the order, 0 if it is not fulfilled
+     */
+    public int getNewAmount(int index) {
+        return newAmounts[index];
+    }
+
+    /**
+     * @return the old blisters of the order, 0 if it is not fulfilled
+     */
+    public int getOldAmount(int index) {
+        return oldAmounts[index];
+    }
+
+    /**
+     * @return the weighted objective value of the allocation
+     */
+    public double getObjective() {
+        return objective;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the relative distance of the objective to the best objective any allocation could reach, 0 if the
+     * allocation is optimal and infinite if no bound is known
+     */
+    public double getGap() {
+        if (upperBound == objective) {
+            return 0.0d;
+        }
+        return (upperBound - objective) / Math.max(Math.abs(objective), 1.0d);
+    }
+
+    /**
+     * {@link #OPTIMAL} if the solver proved the allocation optimal, {@link #FEASIBLE} if it only satisfies all
+     * constraints.
+     */
+    public enum Status {
+        OPTIMAL,
+        FEASIBLE
+    }
+}
@@ -0,0 +1,348 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Primitive view of a {@link OrderOptimizer.BlisterData}. The orders are sorted by date, index {@code i} of every
+ * accessor belongs to the {@code i}-th oldest order. Orders of the same date are sorted by requested amount and
+ * longtime value, so equal batches always get the same order indices.
+ * <p>
+ * The problem holds only primitive columns and no order objects. Callers which solve {@link OrderOptimizer.Order}s
+ * sort them with {@link #sortedByDate(Collection)} and bind the allocation to them, see
+ * {@link Allocation#withOrders(List)}.
+ * <p>
+ * The problem carries the {@link OptimizerConfig} it is solved with, whose weights define its objective.
+ */
+public final class BlisterProblem {
+
+    /**
+     * New amount of an order which is not fulfilled in an allocation.
+     */
+    public static final int DISABLED = -1;
+
+    static final Comparator<OrderOptimizer.Order> BY_DATE = Comparator
+            .comparing(OrderOptimizer.Order::getOrderingDate)
+            .thenComparingInt(OrderOptimizer.Order::getRequestedAmount)
+            .thenComparing(OrderOptimizer.Order::getLongtimeValue, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final int newCapacity;
+    private final int oldCapacity;
+    /**
+     * Row of every order in its {@link ColumnarBlisterData}, null if the orders are given as objects.
+     */
+    private final int[] rows;
+    private final int[] requestedAmounts;
+    private final int[] minimumNewAmounts;
+    private final short[] longtimeValues;
+    private final long[] orderingDates;
+    private final CoefficientTable coefficients;
+    /**
+     * Position of the first order in the backlog of a {@link #window(int, int, int, int)}, 0 for a whole batch.
+     */
+    private final int offset;
+    private final OptimizerConfig config;
+    private final double fulfillmentWeight;
+    private final double shortTimeWeight;
+    private final double longTimeWeight;
+
+    private BlisterProblem(int newCapacity, int oldCapacity, int[] rows,
+            int[] requestedAmounts, short[] longtimeValues, long[] orderingDates, CoefficientTable coefficients,
+            int offset, OptimizerConfig config) {
+        this.newCapacity = newCapacity;
+        this.oldCapacity = oldCapacity;
+        this.rows = rows;
+        this.requestedAmounts = requestedAmounts;
+        this.minimumNewAmounts = new int[requestedAmounts.length];
+        this.longtimeValues = longtimeValues;
+        this.orderingDates = orderingDates;
+        this.coefficients = coefficients;
+        this.offset = offset;
+        this.config = config;
+        this.fulfillmentWeight = config.getFulfillmentWeight().doubleValue();
+        this.shortTimeWeight = config.getShortTimeWeight().doubleValue();
+        this.longTimeWeight = config.getLongTimeWeight().doubleValue();
+
+        for (int index = 0; index < requestedAmounts.length; index++) {
+            minimumNewAmounts[index] = minimumNewAmountOf(requestedAmounts[index], longtimeValues[index]);
+        }
+    }
+
+    static BlisterProblem of(OrderOptimizer.BlisterData blisterData) {
+        return of(blisterData, OptimizerConfig.EXACT);
+    }
+
+    static BlisterProblem of(OrderOptimizer.BlisterData blisterData, OptimizerConfig config) {
+        return of(blisterData.getNewAmount(), blisterData.getOldAmount(), sortedByDate(blisterData.getOrders()),
+                config);
+    }
+
+    /**
+     * @param sortedByDate the orders of the batch sorted by {@link #sortedByDate(Collection)}, only read here
+     */
+    static BlisterProblem of(int newCapacity, int oldCapacity, List<OrderOptimizer.Order> sortedByDate,
+            OptimizerConfig config) {
+        int size = sortedByDate.size();
+        int[] requestedAmounts = new int[size];
+        short[] longtimeValues = new short[size];
+        long[] orderingDates = new long[size];
+        for (int index = 0; index < size; index++) {
+            OrderOptimizer.Order order = sortedByDate.get(index);
+            requestedAmounts[index] = order.getRequestedAmount();
+            longtimeValues[index] = longtimeValueOf(order.getLongtimeValue());
+            orderingDates[index] = order.getOrderingDate().getTime();
+        }
+        return new BlisterProblem(newCapacity, oldCapacity, null, requestedAmounts, longtimeValues, orderingDates,
+                new CoefficientTable(size), 0, config);
+    }
+
+    static BlisterProblem of(ColumnarBlisterData blisterData) {
+        return of(blisterData, OptimizerConfig.EXACT);
+    }
+
+    /**
+     * Reads the columns in the order of {@link ColumnarBlisterData#rowsByDate()}, no order objects are created.
+     */
+    static BlisterProblem of(ColumnarBlisterData blisterData, OptimizerConfig config) {
+        int[] rows = blisterData.rowsByDate();
+        int[] requestedAmounts = new int[rows.length];
+        short[] longtimeValues = new short[rows.length];
+        long[] orderingDates = new long[rows.length];
+        for (int index = 0; index < rows.length; index++) {
+            int row = rows[index];
+            requestedAmounts[index] = blisterData.getRequestedAmount(row);
+            short longtimeValue = blisterData.getLongtimeValue(row);
+            longtimeValues[index] = longtimeValue == ColumnarBlisterData.NO_LONGTIME
+                    ? ColumnarBlisterData.NO_LONGTIME
+                    : clampLongtimeValue(longtimeValue);
+            orderingDates[index] = blisterData.getOrderingDate(row);
+        }
+        return new BlisterProblem(blisterData.getNewAmount(), blisterData.getOldAmount(), rows, requestedAmounts,
+                longtimeValues, orderingDates, new CoefficientTable(rows.length), 0, config);
+    }
+
+    /**
+     * @return the orders sorted like the indices of their problem, see {@link #BY_DATE}
+     */
+    static List<OrderOptimizer.Order> sortedByDate(Collection<OrderOptimizer.Order> orders) {
+        List<OrderOptimizer.Order> sortedByDate = new ArrayList<>(orders);
+        sortedByDate.sort(BY_DATE);
+        return sortedByDate;
+    }
+
+    /**
+     * Cuts the orders {@code from} (inclusive) to {@code to} (exclusive) out of the batch. The objective of the window
+     * is the one its orders have in the whole batch, so the allocations of consecutive windows add up to an
+     * allocation of the batch.
+     *
+     * @param newCapacity new blisters left for the window
+     * @param oldCapacity old blisters left for the window
+     */
+    BlisterProblem window(int from, int to, int newCapacity, int oldCapacity) {
+        return new BlisterProblem(newCapacity, oldCapacity, rows != null ? Arrays.copyOfRange(rows, from, to) : null,
+                Arrays.copyOfRange(requestedAmounts, from, to), Arrays.copyOfRange(longtimeValues, from, to),
+                Arrays.copyOfRange(orderingDates, from, to), coefficients, offset + from, config);
+    }
+
+    /**
+     * @return the longtime value as percentage, {@link ColumnarBlisterData#NO_LONGTIME} for null
+     */
+    static short longtimeValueOf(Long longtimeValue) {
+        return longtimeValue == null ? ColumnarBlisterData.NO_LONGTIME : clampLongtimeValue(longtimeValue);
+    }
+
+    /**
+     * Percentages below 0 need no new blisters and those above 100 can not be fulfilled, exactly like 0 and 101.
+     */
+    private static short clampLongtimeValue(long longtimeValue) {
+        return (short) Math.max(0L, Math.min(101L, longtimeValue));
+    }
+
+    /**
+     * @return the smallest number of new blisters satisfying the longtime percentage, more than the requested amount
+     * if the order can not be fulfilled at all
+     */
+    static int minimumNewAmountOf(int requestedAmount, Long longtimeValue) {
+        return minimumNewAmountOf(requestedAmount, longtimeValueOf(longtimeValue));
+    }
+
+    private static int minimumNewAmountOf(int requestedAmount, short longtimeValue) {
+        if (longtimeValue <= 0) {
+            return 0;
+        }
+        if (longtimeValue > 100) {
+            return requestedAmount + 1;
+        }
+        return (int) ((longtimeValue * (long) requestedAmount + 99) / 100);
+    }
+
+    public int size() {
+        return requestedAmounts.length;
+    }
+
+    public int getNewCapacity() {
+        return newCapacity;
+    }
+
+    public int getOldCapacity() {
+        return oldCapacity;
+    }
+
+    /**
+     * @return true if the batch is given as {@link ColumnarBlisterData}
+     */
+    boolean isColumnar() {
+        return rows != null;
+    }
+
+    /**
+     * @return the row of the order in its {@link ColumnarBlisterData}, the index itself if the orders are given as
+     * objects
+     */
+    public int getRow(int index) {
+        return rows != null ? rows[index] : index;
+    }
+
+    /**
+     * @return the ordering date in epoch milliseconds
+     */
+    public long getOrderingDate(int index) {
+        return orderingDates[index];
+    }
+
+    public int getRequestedAmount(int index) {
+        return requestedAmounts[index];
+    }
+
+    /**
+     * @return the smallest number of new blisters satisfying the longtime percentage, more than the requested amount
+     * if the order can not be fulfilled at all
+     */
+    public int getMinimumNewAmount(int index) {
+        return minimumNewAmounts[index];
+    }
+
+    public boolean isLongtimeValueSet(int index) {
+        return longtimeValues[index] != ColumnarBlisterData.NO_LONGTIME;
+    }
+
+    /**
+     * @return the lower limit of {@code longtime - enabled} in the big-M formulation, see
+     * {@link CoefficientTable#longtimeSlackOf(Long)}
+     */
+    double getLongtimeSlack(int index) {
+        return longtimeSlackOf(longtimeValues[index]);
+    }
+
+    /**
+     * @return the lower limit of {@code longtime - enabled} of an order with the longtime value, see
+     * {@link #getLongtimeSlack(int)}
+     */
+    static double longtimeSlackOf(Long longtimeValue) {
+        return longtimeSlackOf(longtimeValueOf(longtimeValue));
+    }
+
+    private static double longtimeSlackOf(short longtimeValue) {
+        return CoefficientTable.longtimeSlackOf(
+                longtimeValue != ColumnarBlisterData.NO_LONGTIME ? (long) longtimeValue : null);
+    }
+
+    public int getTotalRequestedAmount() {
+        int total = 0;
+        for (int requestedAmount : requestedAmounts) {
+            total += requestedAmount;
+        }
+        return total;
+    }
+
+    /**
+     * @return the fulfillment coefficient of the position of the order, see
+     * {@link CoefficientTable#fulfillmentWeightOf(int)}
+     */
+    double fulfillmentCoefficientOf(int index) {
+        return CoefficientTable.fulfillmentWeightOf(offset + index);
+    }
+
+    double shortTimeCoefficientOf(int index) {
+        return coefficients.shortTimeCoefficientOf(offset + index);
+    }
+
+    double longTimeCoefficientOf(int index) {
+        return coefficients.longTimeCoefficientOf(offset + index);
+    }
+
+    public OptimizerConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return the weighted objective gained by fulfilling the order at all
+     */
+    public double gainOf(int index) {
+        return fulfillmentWeight * fulfillmentCoefficientOf(index);
+    }
+
+    /**
+     * @return the weighted objective gained per new blister of a fulfilled order, negative if old blisters are
+     * preferred
+     */
+    public double slopeOf(int index) {
+        if (requestedAmounts[index] == 0) {
+            return 0.0d;
+        }
+        return isLongtimeValueSet(index)
+                ? shortTimeWeight * shortTimeCoefficientOf(index)
+                        / requestedAmounts[index]
+                : longTimeWeight * longTimeCoefficientOf(index)
+                        / requestedAmounts[index];
+    }
+
+    /**
+     * Bound of the objective which needs no solver, so it is known even if a solve runs out of time. Every order gets
+     * its best split, the orders are packed into the sum of both capacities by objective per requested blister and
+     * the last order which does not fit is taken fractionally.
+     *
+     * @return an upper bound of the objective of every allocation of the batch
+     */
+    double upperBound() {
+        double[] values = new double[size()];
+        for (int index = 0; index < values.length; index++) {
+            double slope = slopeOf(index);
+            values[index] = gainOf(index)
+                    + slope * (slope > 0 ? requestedAmounts[index] : minimumNewAmounts[index]);
+        }
+        Integer[] byDensity = IntStream.range(0, values.length)
+                .filter(index -> values[index] > 0)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer index) -> -values[index]
+                        / Math.max(requestedAmounts[index], Double.MIN_VALUE)))
+                .toArray(Integer[]::new);
+        double bound = 0.0d;
+        long capacity = (long) newCapacity + oldCapacity;
+        for (int index : byDensity) {
+            if (requestedAmounts[index] <= capacity) {
+                bound += values[index];
+                capacity -= requestedAmounts[index];
+            } else {
+                return bound + values[index] * capacity / requestedAmounts[index];
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * @param newAmounts new blisters per order index, {@link #DISABLED} for orders which are not fulfilled
+     * @return the weighted objective of the allocation, as maximised by the solvers
+     */
+    public double objectiveOf(int[] newAmounts) {
+        double objective = 0.0d;
+        for (int index = 0; index < size(); index++) {
+            if (newAmounts[index] != DISABLED) {
+                objective += gainOf(index) + slopeOf(index) * newAmounts[index];
+            }
+        }
+        return objective;
+    }
+}
@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary snapshot files of batches and of their allocations, read and written through memory-mapped files. The columns
+ * of a batch are copied in bulk into the arrays of a {@link ColumnarBlisterData}, no object is created per order.
+ * <p>
+ * A batch file starts with the magic number, the format version and the number of batches. Every batch follows as
+ * new and old capacity, number of orders and then its columns: the requested amounts as {@code int}, the ordering
+ * dates in epoch milliseconds as {@code long} and the longtime values as {@code short}. An allocation file has the same
+ * header; every allocation follows as number of orders and the new amount of each order in row order,
+ * {@link BlisterProblem#DISABLED} for orders which are not fulfilled. All values are big-endian.
+ */
+public final class BlisterSnapshot {
+
+    static final int BATCH_MAGIC = 0x424C5342;
+    static final int ALLOCATION_MAGIC = 0x424C5341;
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    private static final int BATCH_HEADER_BYTES = 3 * Integer.BYTES;
+    private static final int ROW_BYTES = Integer.BYTES + Long.BYTES + Short.BYTES;
+
+    private BlisterSnapshot() {
+    }
+
+    public static void writeBatches(Path file, List<ColumnarBlisterData> batches) throws IOException {
+        try (FileChannel channel = openForWrite(file)) {
+            long position = writeHeader(channel, BATCH_MAGIC, batches.size());
+            for (ColumnarBlisterData batch : batches) {
+                int size = batch.size();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                        BATCH_HEADER_BYTES + (long) size * ROW_BYTES);
+                buffer.putInt(batch.getNewAmount()).putInt(batch.getOldAmount()).putInt(size);
+                for (int row = 0; row < size; row++) {
+                    buffer.putInt(batch.getRequestedAmount(row));
+                }
+                for (int row = 0; row < size; row++) {
+                    buffer.putLong(batch.getOrderingDate(row));
+                }
+                for (int row = 0; row < size; row++) {
+                    buffer.putShort(batch.getLongtimeValue(row));
+                }
+                position += buffer.capacity();
+            }
+        }
+    }
+
+    public static List<ColumnarBlisterData> readBatches(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int count = readHeader(channel, BATCH_MAGIC, file);
+            List<ColumnarBlisterData> batches = new ArrayList<>(count);
+            long position = HEADER_BYTES;
+            for (int batch = 0; batch < count; batch++) {
+                ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, position, BATCH_HEADER_BYTES);
+                int newAmount = header.getInt();
+                int oldAmount = header.getInt();
+                int size = header.getInt();
+                position += BATCH_HEADER_BYTES;
+
+                ByteBuffer columns = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) size * ROW_BYTES);
+                int[] requestedAmounts = new int[size];
+                long[] orderingDates = new long[size];
+                short[] longtimeValues = new short[size];
+                columns.asIntBuffer().get(requestedAmounts);
+                columns.position(size * Integer.BYTES);
+                columns.asLongBuffer().get(orderingDates);
+                columns.position(size * (Integer.BYTES + Long.BYTES));
+                columns.asShortBuffer().get(longtimeValues);
+                position += (long) size * ROW_BYTES;
+
+                batches.add(new ColumnarBlisterData(newAmount, oldAmount, requestedAmounts, orderingDates,
+                        longtimeValues));
+            }
+            return batches;
+        }
+    }
+
+    /**
+     * Writes the new amounts of every allocation in the row order of its batch, see {@link Allocation#getRow(int)}.
+     */
+    public static void writeAllocations(Path file, List<Allocation> allocations) throws IOException {
+        try (FileChannel channel = openForWrite(file)) {
+            long position = writeHeader(channel, ALLOCATION_MAGIC, allocations.size());
+            for (Allocation allocation : allocations) {
+                int size = allocation.size();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                        Integer.BYTES + (long) size * Integer.BYTES);
+                buffer.putInt(size);
+                for (int index = 0; index < size; index++) {
+                    int newAmount = allocation.isEnabled(index) ? allocation.getNewAmount(index)
+                            : BlisterProblem.DISABLED;
+                    buffer.putInt(Integer.BYTES * (1 + allocation.getRow(index)), newAmount);
+                }
+                position += buffer.capacity();
+            }
+        }
+    }
+
+    /**
+     * @return the new amounts of every allocation by row, {@link BlisterProblem#DISABLED} for orders which are not
+     * fulfilled
+     */
+    public static List<int[]> readAllocations(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int count = readHeader(channel, ALLOCATION_MAGIC, file);
+            List<int[]> allocations = new ArrayList<>(count);
+            long position = HEADER_BYTES;
+            for (int allocation = 0; allocation < count; allocation++) {
+                int size = channel.map(FileChannel.MapMode.READ_ONLY, position, Integer.BYTES).getInt();
+                position += Integer.BYTES;
+                int[] newAmounts = new int[size];
+                channel.map(FileChannel.MapMode.READ_ONLY, position, (long) size * Integer.BYTES)
+                        .asIntBuffer().get(newAmounts);
+                position += (long) size * Integer.BYTES;
+                allocations.add(newAmounts);
+            }
+            return allocations;
+        }
+    }
+
+    private static FileChannel openForWrite(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @return the position after the header
+     */
+    private static long writeHeader(FileChannel channel, int magic, int count) throws IOException {
+        channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES).putInt(magic).putInt(VERSION).putInt(count);
+        return HEADER_BYTES;
+    }
+
+    /**
+     * @return the number of batches or allocations in the file
+     */
+    private static int readHeader(FileChannel channel, int magic, Path file) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            throw new IOException("Not a blister snapshot: " + file);
+        }
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        if (header.getInt() != magic) {
+            throw new IOException("Not a blister snapshot of the expected kind: " + file);
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ": " + file);
+        }
+        return header.getInt();
+    }
+}
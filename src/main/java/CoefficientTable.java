@@ -0,0 +1,66 @@
+/**
+ * Objective coefficients of the blister model in primitive form. The fulfillment weights are shared by all batches,
+ * the short- and longtime coefficients are computed once per batch size.
+ */
+final class CoefficientTable {
+
+    private static final int MAX_WEIGHT_EXPONENT = 6;
+    private static final double[] FULFILLMENT_WEIGHTS = new double[MAX_WEIGHT_EXPONENT + 1];
+
+    static {
+        for (int i = 0; i < FULFILLMENT_WEIGHTS.length; i++) {
+            FULFILLMENT_WEIGHTS[i] = 1.0d / (1 << i);
+        }
+    }
+
+    private final double[] shortTimeCoefficients;
+    private final double[] longTimeCoefficients;
+
+    /**
+     * @param size number of orders in the batch
+     */
+    CoefficientTable(int size) {
+        shortTimeCoefficients = new double[size];
+        longTimeCoefficients = new double[size];
+        for (int index = 0; index < size; index++) {
+            int divider = index + 1;
+            int reversedDivider = size + 1 - divider;
+            shortTimeCoefficients[index] = -(double) divider / reversedDivider;
+            longTimeCoefficients[index] = (double) reversedDivider / divider;
+        }
+    }
+
+    /**
+     * @param index position of the order sorted by date
+     * @return 1/2^index, capped at 1/64
+     */
+    static double fulfillmentWeightOf(int index) {
+        return FULFILLMENT_WEIGHTS[Math.min(index, MAX_WEIGHT_EXPONENT)];
+    }
+
+    /**
+     * @param longtimeValue percentage of new blisters required by an order, may be null
+     * @return the lower limit of {@code longtime - enabled}, i.e. the negated share of an enabled order which may be
+     * served with old blisters
+     */
+    static double longtimeSlackOf(Long longtimeValue) {
+        long percentage = longtimeValue != null ? longtimeValue : 0L;
+        return (percentage - 100) / 100.0d;
+    }
+
+    /**
+     * Coefficient of the longtime share of an order with a longtime value. Later orders are pushed harder towards old
+     * blisters.
+     */
+    double shortTimeCoefficientOf(int index) {
+        return shortTimeCoefficients[index];
+    }
+
+    /**
+     * Coefficient of the longtime share of an order without a longtime value. Earlier orders are pushed harder
+     * towards new blisters.
+     */
+    double longTimeCoefficientOf(int index) {
+        return longTimeCoefficients[index];
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.Arrays;
+
+/**
+ * Batch of orders held in primitive columns instead of {@link OrderOptimizer.Order} objects, for batches too large to
+ * load as objects. Row {@code r} of every column belongs to the same order. The columns are used as given and must not
+ * be changed while the batch is optimized.
+ */
+public final class ColumnarBlisterData {
+
+    /**
+     * Longtime value of an order without longtime percentage.
+     */
+    public static final short NO_LONGTIME = -1;
+
+    private final int newAmount;
+    private final int oldAmount;
+    private final int[] requestedAmounts;
+    private final long[] orderingDates;
+    private final short[] longtimeValues;
+
+    /**
+     * @param requestedAmounts requested blisters per order
+     * @param orderingDates ordering date per order in epoch milliseconds
+     * @param longtimeValues percentage of new blisters per order, {@link #NO_LONGTIME} for orders without one
+     */
+    public ColumnarBlisterData(int newAmount, int oldAmount, int[] requestedAmounts, long[] orderingDates,
+            short[] longtimeValues) {
+        if (orderingDates.length != requestedAmounts.length || longtimeValues.length != requestedAmounts.length) {
+            throw new IllegalArgumentException("Columns differ in length: " + requestedAmounts.length + " amounts, "
+                    + orderingDates.length + " dates, " + longtimeValues.length + " longtime values");
+        }
+        this.newAmount = newAmount;
+        this.oldAmount = oldAmount;
+        this.requestedAmounts = requestedAmounts;
+        this.orderingDates = orderingDates;
+        this.longtimeValues = longtimeValues;
+    }
+
+    /**
+     * @return the columns of the orders in the iteration order of the batch
+     */
+    public static ColumnarBlisterData of(OrderOptimizer.BlisterData blisterData) {
+        int size = blisterData.getOrders().size();
+        int[] requestedAmounts = new int[size];
+        long[] orderingDates = new long[size];
+        short[] longtimeValues = new short[size];
+        int row = 0;
+        for (OrderOptimizer.Order order : blisterData.getOrders()) {
+            requestedAmounts[row] = order.getRequestedAmount();
+            orderingDates[row] = order.getOrderingDate().getTime();
+            longtimeValues[row] = BlisterProblem.longtimeValueOf(order.getLongtimeValue());
+            row++;
+        }
+        return new ColumnarBlisterData(blisterData.getNewAmount(), blisterData.getOldAmount(), requestedAmounts,
+                orderingDates, longtimeValues);
+    }
+
+    public int size() {
+        return requestedAmounts.length;
+    }
+
+    public int getNewAmount() {
+        return newAmount;
+    }
+
+    public int getOldAmount() {
+        return oldAmount;
+    }
+
+    public int getRequestedAmount(int row) {
+        return requestedAmounts[row];
+    }
+
+    public long getOrderingDate(int row) {
+        return orderingDates[row];
+    }
+
+    /**
+     * @return the percentage of new blisters, {@link #NO_LONGTIME} if the order has none
+     */
+    public short getLongtimeValue(int row) {
+        return longtimeValues[row];
+    }
+
+    /**
+     * Sorts the rows like {@link BlisterProblem#BY_DATE}: by date, then requested amount, then longtime value with
+     * orders without one first. Rows which are equal in all three keep their order.
+     *
+     * @return the rows from the oldest order on
+     */
+    int[] rowsByDate() {
+        int[] rows = new int[size()];
+        for (int row = 0; row < rows.length; row++) {
+            rows[row] = row;
+        }
+        // Bottom-up merge sort on the row numbers, stable and without boxing
+        int[] buffer = new int[rows.length];
+        for (int width = 1; width < rows.length; width *= 2) {
+            for (int low = 0; low < rows.length; low += 2 * width) {
+                int middle = Math.min(low + width, rows.length);
+                int high = Math.min(low + 2 * width, rows.length);
+                int left = low;
+                int right = middle;
+                for (int target = low; target < high; target++) {
+                    if (left < middle && (right >= high || compareRows(rows[left], rows[right]) <= 0)) {
+                        buffer[target] = rows[left++];
+                    } else {
+                        buffer[target] = rows[right++];
+                    }
+                }
+            }
+            int[] sorted = buffer;
+            buffer = rows;
+            rows = sorted;
+        }
+        return rows;
+    }
+
+    private int compareRows(int first, int second) {
+        int byDate = Long.compare(orderingDates[first], orderingDates[second]);
+        if (byDate != 0) {
+            return byDate;
+        }
+        int byAmount = Integer.compare(requestedAmounts[first], requestedAmounts[second]);
+        if (byAmount != 0) {
+            return byAmount;
+        }
+        // NO_LONGTIME is negative and sorts first like a missing value
+        return Short.compare(longtimeValues[first], longtimeValues[second]);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * (31 * newAmount + oldAmount) + Arrays.hashCode(requestedAmounts))
+                + Arrays.hashCode(orderingDates)) + Arrays.hashCode(longtimeValues);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ColumnarBlisterData)) {
+            return false;
+        }
+
+        ColumnarBlisterData other = (ColumnarBlisterData) obj;
+
+        return newAmount == other.newAmount &&
+                oldAmount == other.oldAmount &&
+                Arrays.equals(requestedAmounts, other.requestedAmounts) &&
+                Arrays.equals(orderingDates, other.orderingDates) &&
+                Arrays.equals(longtimeValues, other.longtimeValues);
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Partitions a flat set of orders into one {@link OrderOptimizer.BlisterData} per depot, with the stock of the depot as
+ * capacities. The orders are hashed by {@link OrderOptimizer.Order#getDepotId()} in one parallel pass.
+ */
+public final class DepotBatchBuilder {
+
+    private final Map<Long, int[]> stocks = new HashMap<>();
+
+    /**
+     * @param newAmount new blisters in stock at the depot
+     * @param oldAmount old blisters in stock at the depot
+     */
+    public DepotBatchBuilder addStock(long depotId, int newAmount, int oldAmount) {
+        stocks.put(depotId, new int[]{newAmount, oldAmount});
+        return this;
+    }
+
+    /**
+     * @return the batch of every depot with orders, sorted by depot id
+     * @throws IllegalArgumentException if an order has no depot or its depot has no stock
+     */
+    public Map<Long, OrderOptimizer.BlisterData> build(Collection<OrderOptimizer.Order> orders) {
+        ConcurrentMap<Long, List<OrderOptimizer.Order>> ordersByDepot = orders.parallelStream()
+                .collect(Collectors.groupingByConcurrent(this::depotOf));
+
+        Map<Long, OrderOptimizer.BlisterData> batches = new TreeMap<>();
+        ordersByDepot.forEach((depotId, depotOrders) -> {
+            int[] stock = stocks.get(depotId);
+            batches.put(depotId, new OrderOptimizer.BlisterData(stock[0], stock[1], depotOrders));
+        });
+        return batches;
+    }
+
+    private Long depotOf(OrderOptimizer.Order order) {
+        Long depotId = order.getDepotId();
+        if (depotId == null) {
+            throw new IllegalArgumentException("Order " + order.getId() + " has no depot");
+        }
+        if (!stocks.containsKey(depotId)) {
+            throw new IllegalArgumentException("No stock for depot " + depotId + " of order " + order.getId());
+        }
+        return depotId;
+    }
+}
@@ -0,0 +1,147 @@
+import org.ojalgo.optimisation.Optimisation;
+
+import java.util.Arrays;
+
+/**
+ * Exact solver for the blister allocation which works on the capacities directly instead of building a MIP. Every
+ * order is a stage, the state is the number of new and old blisters used so far. The objective is the same as the one
+ * of the MIP built by {@link OrderOptimizer}.
+ */
+final class DynamicProgrammingSolver implements SolverBackend {
+
+    static final String NAME = "dynamic-programming";
+
+    private static final int MAX_TABLE_CELLS = 1 << 21;
+    private static final double TOLERANCE = 1e-9;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * @return true if the decision table of the problem is small enough to be solved by this solver
+     */
+    @Override
+    public boolean supports(BlisterProblem problem) {
+        return tableCellsOf(problem) <= MAX_TABLE_CELLS;
+    }
+
+    /**
+     * @return the number of cells of the decision table, one per order and state
+     */
+    long tableCellsOf(BlisterProblem problem) {
+        long states = (long) (newCapacityOf(problem) + 1) * (oldCapacityOf(problem) + 1);
+        return states * Math.max(problem.size(), 1);
+    }
+
+    @Override
+    public Allocation solve(BlisterProblem problem, long timeLimitMillis, SolveListener listener) {
+        return solve(problem, timeLimitMillis, listener, new SolveCancellation());
+    }
+
+    /**
+     * The table is bounded, so the solve is fast and not limited in time. A cancellation stops it before the next
+     * stage.
+     */
+    @Override
+    public Allocation solve(BlisterProblem problem, long timeLimitMillis, SolveListener listener,
+            SolveCancellation cancellation) {
+        long solveStart = System.nanoTime();
+        int[] newAmounts = allocate(problem, cancellation);
+        long extractStart = System.nanoTime();
+        Allocation allocation = Allocation.of(problem, newAmounts, Allocation.Status.OPTIMAL);
+        if (listener != null) {
+            listener.solved(new SolveMetrics(NAME, problem.size(), 0L, extractStart - solveStart,
+                    System.nanoTime() - extractStart, problem.size(), 2, tableCellsOf(problem),
+                    Optimisation.State.OPTIMAL));
+        }
+        return allocation;
+    }
+
+    /**
+     * @return the number of new blisters per order index, {@link BlisterProblem#DISABLED} for orders which are not
+     * fulfilled
+     * @throws java.util.concurrent.CancellationException if the solve was cancelled
+     */
+    int[] allocate(BlisterProblem problem, SolveCancellation cancellation) {
+        if (!supports(problem)) {
+            throw new IllegalArgumentException("Problem too large for dynamic programming: " + problem.size()
+                    + " orders");
+        }
+
+        int size = problem.size();
+        int newCapacity = newCapacityOf(problem);
+        int oldCapacity = oldCapacityOf(problem);
+        int width = oldCapacity + 1;
+        int states = (newCapacity + 1) * width;
+
+        double[] current = new double[states];
+        double[] next = new double[states];
+        int[] choices = new int[size * states];
+        Arrays.fill(current, Double.NEGATIVE_INFINITY);
+        current[0] = 0.0d;
+
+        for (int index = 0; index < size; index++) {
+            cancellation.checkNotCancelled();
+            System.arraycopy(current, 0, next, 0, states);
+            Arrays.fill(choices, index * states, (index + 1) * states, BlisterProblem.DISABLED);
+
+            int requested = problem.getRequestedAmount(index);
+            int minimumNew = problem.getMinimumNewAmount(index);
+            double gain = problem.gainOf(index);
+            double slope = problem.slopeOf(index);
+
+            if (minimumNew <= requested) {
+                for (int newUsed = 0; newUsed <= newCapacity; newUsed++) {
+                    for (int oldUsed = 0; oldUsed <= oldCapacity; oldUsed++) {
+                        double value = current[newUsed * width + oldUsed];
+                        if (value == Double.NEGATIVE_INFINITY) {
+                            continue;
+                        }
+                        int lowest = Math.max(minimumNew, requested - (oldCapacity - oldUsed));
+                        int highest = Math.min(requested, newCapacity - newUsed);
+                        for (int newAmount = lowest; newAmount <= highest; newAmount++) {
+                            int state = (newUsed + newAmount) * width + oldUsed + requested - newAmount;
+                            double candidate = value + gain + slope * newAmount;
+                            if (candidate > next[state] + TOLERANCE) {
+                                next[state] = candidate;
+                                choices[index * states + state] = newAmount;
+                            }
+                        }
+                    }
+                }
+            }
+
+            double[] swap = current;
+            current = next;
+            next = swap;
+        }
+
+        int best = 0;
+        for (int state = 1; state < states; state++) {
+            if (current[state] > current[best] + TOLERANCE) {
+                best = state;
+            }
+        }
+
+        int[] newAmounts = new int[size];
+        int state = best;
+        for (int index = size - 1; index >= 0; index--) {
+            int newAmount = choices[index * states + state];
+            newAmounts[index] = newAmount;
+            if (newAmount != BlisterProblem.DISABLED) {
+                state -= newAmount * width + problem.getRequestedAmount(index) - newAmount;
+            }
+        }
+        return newAmounts;
+    }
+
+    private static int newCapacityOf(BlisterProblem problem) {
+        return Math.max(0, Math.min(problem.getNewCapacity(), problem.getTotalRequestedAmount()));
+    }
+
+    private static int oldCapacityOf(BlisterProblem problem) {
+        return Math.max(0, Math.min(problem.getOldCapacity(), problem.getTotalRequestedAmount()));
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Feasible allocation by date: the oldest orders are served first, each one takes the new blisters required by its
+ * longtime value and the rest from the old blisters. Orders which do not fit into the remaining capacities stay
+ * disabled.
+ */
+final class GreedyAllocator {
+
+    private GreedyAllocator() {
+    }
+
+    /**
+     * @return the number of new blisters per order index, {@link BlisterProblem#DISABLED} for orders which are not
+     * fulfilled
+     */
+    static int[] allocate(BlisterProblem problem) {
+        int[] sequence = new int[problem.size()];
+        for (int index = 0; index < sequence.length; index++) {
+            sequence[index] = index;
+        }
+        return allocate(problem, sequence);
+    }
+
+    /**
+     * Serves the orders in the given sequence instead of by date.
+     *
+     * @param sequence every order index once
+     */
+    static int[] allocate(BlisterProblem problem, int[] sequence) {
+        int[] newAmounts = new int[problem.size()];
+        int remainingNew = problem.getNewCapacity();
+        int remainingOld = problem.getOldCapacity();
+        for (int index : sequence) {
+            int requested = problem.getRequestedAmount(index);
+            int newAmount = Math.max(problem.getMinimumNewAmount(index), requested - remainingOld);
+            if (newAmount > requested || newAmount > remainingNew) {
+                newAmounts[index] = BlisterProblem.DISABLED;
+                continue;
+            }
+            newAmounts[index] = newAmount;
+            remainingNew -= newAmount;
+            remainingOld -= requested - newAmount;
+        }
+        return newAmounts;
+    }
+}
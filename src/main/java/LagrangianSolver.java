@@ -0,0 +1,229 @@
+import org.ojalgo.optimisation.Optimisation;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Heuristic solver for very large batches. The two capacity rows are the only constraints coupling the orders, so they
+ * are relaxed with one multiplier each. The relaxed problem falls apart into one subproblem per order, which is solved
+ * in constant time, and the multipliers are improved by subgradient steps. Every relaxed solution is repaired to a
+ * feasible allocation, the best one is returned together with the best dual bound.
+ */
+final class LagrangianSolver implements SolverBackend {
+
+    static final String NAME = "lagrangian";
+
+    private static final int MAX_ITERATIONS = 500;
+    private static final int STEP_PATIENCE = 10;
+    private static final double INITIAL_STEP_SCALE = 2.0d;
+    private static final double MIN_STEP_SCALE = 1e-4;
+    private static final double TOLERANCE = 1e-9;
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(BlisterProblem problem) {
+        return true;
+    }
+
+    @Override
+    public Allocation solve(BlisterProblem problem, long timeLimitMillis, SolveListener listener) {
+        return solve(problem, timeLimitMillis, listener, new SolveCancellation());
+    }
+
+    /**
+     * The iterations are linear in the number of orders and bounded, so the solve is not limited in time. A
+     * cancellation stops it before the next iteration.
+     */
+    @Override
+    public Allocation solve(BlisterProblem problem, long timeLimitMillis, SolveListener listener,
+            SolveCancellation cancellation) {
+        long solveStart = System.nanoTime();
+        Solution solution = search(problem, cancellation);
+        long extractStart = System.nanoTime();
+        Allocation allocation = solution.optimal
+                ? Allocation.of(problem, solution.newAmounts, Allocation.Status.OPTIMAL)
+                : Allocation.of(problem, solution.newAmounts, Allocation.Status.FEASIBLE, solution.upperBound);
+        if (listener != null) {
+            listener.solved(new SolveMetrics(NAME, problem.size(), 0L, extractStart - solveStart,
+                    System.nanoTime() - extractStart, problem.size(), 2, solution.iterations,
+                    solution.optimal ? Optimisation.State.OPTIMAL : Optimisation.State.FEASIBLE));
+        }
+        return allocation;
+    }
+
+    /**
+     * @throws java.util.concurrent.CancellationException if the solve was cancelled
+     */
+    Solution search(BlisterProblem problem, SolveCancellation cancellation) {
+        int size = problem.size();
+        double[] gains = new double[size];
+        double[] slopes = new double[size];
+        for (int index = 0; index < size; index++) {
+            gains[index] = problem.gainOf(index);
+            slopes[index] = problem.slopeOf(index);
+        }
+
+        int[] best = repair(problem, gains, slopes, GreedyAllocator.allocate(problem));
+        double bestObjective = problem.objectiveOf(best);
+        double bestBound = Double.POSITIVE_INFINITY;
+        double newMultiplier = 0.0d;
+        double oldMultiplier = 0.0d;
+        double stepScale = INITIAL_STEP_SCALE;
+        int withoutImprovement = 0;
+        int[] relaxed = new int[size];
+        int iteration = 0;
+        while (iteration < MAX_ITERATIONS && stepScale >= MIN_STEP_SCALE) {
+            cancellation.checkNotCancelled();
+            iteration++;
+            double bound = solveRelaxation(problem, gains, slopes, newMultiplier, oldMultiplier, relaxed);
+            if (bound < bestBound - TOLERANCE) {
+                bestBound = bound;
+                withoutImprovement = 0;
+            } else if (++withoutImprovement >= STEP_PATIENCE) {
+                stepScale /= 2;
+                withoutImprovement = 0;
+            }
+
+            int[] repaired = repair(problem, gains, slopes, relaxed);
+            double objective = problem.objectiveOf(repaired);
+            if (objective > bestObjective) {
+                best = repaired;
+                bestObjective = objective;
+            }
+            if (isClosed(bestObjective, bestBound)) {
+                break;
+            }
+
+            // Subgradient of the dual function, positive if the relaxed solution uses more than available
+            long usedNew = 0;
+            long usedOld = 0;
+            for (int index = 0; index < size; index++) {
+                if (relaxed[index] != BlisterProblem.DISABLED) {
+                    usedNew += relaxed[index];
+                    usedOld += problem.getRequestedAmount(index) - relaxed[index];
+                }
+            }
+            double newExcess = usedNew - (double) problem.getNewCapacity();
+            double oldExcess = usedOld - (double) problem.getOldCapacity();
+            double norm = newExcess * newExcess + oldExcess * oldExcess;
+            if (norm == 0.0d) {
+                break;
+            }
+            double step = stepScale * (bound - bestObjective) / norm;
+            newMultiplier = Math.max(0.0d, newMultiplier + step * newExcess);
+            oldMultiplier = Math.max(0.0d, oldMultiplier + step * oldExcess);
+        }
+        return new Solution(best, bestBound, isClosed(bestObjective, bestBound), iteration);
+    }
+
+    private static boolean isClosed(double objective, double bound) {
+        return bound - objective <= TOLERANCE * Math.max(1.0d, Math.abs(objective));
+    }
+
+    /**
+     * Solves the subproblem of every order for the given multipliers. The relaxed value of an order is linear in its
+     * new amount, so only the bounds of its range and disabling it need to be compared.
+     *
+     * @return the value of the dual function, an upper bound of the objective
+     */
+    private static double solveRelaxation(BlisterProblem problem, double[] gains, double[] slopes,
+            double newMultiplier, double oldMultiplier, int[] relaxed) {
+        IntStream indices = IntStream.range(0, problem.size());
+        if (problem.size() >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        double orders = indices.mapToDouble(index -> {
+            int requested = problem.getRequestedAmount(index);
+            int minimumNew = problem.getMinimumNewAmount(index);
+            relaxed[index] = BlisterProblem.DISABLED;
+            if (minimumNew > requested) {
+                return 0.0d;
+            }
+            double slope = slopes[index] - newMultiplier + oldMultiplier;
+            int newAmount = slope > 0 ? requested : minimumNew;
+            double value = gains[index] - oldMultiplier * requested + slope * newAmount;
+            if (value <= 0.0d) {
+                return 0.0d;
+            }
+            relaxed[index] = newAmount;
+            return value;
+        }).sum();
+        return orders + newMultiplier * problem.getNewCapacity() + oldMultiplier * problem.getOldCapacity();
+    }
+
+    /**
+     * Keeps the orders of the relaxed solution from the oldest on as long as the capacities allow, then fulfills
+     * further orders with what is left and finally shifts the enabled orders between new and old blisters along their
+     * slope.
+     */
+    private static int[] repair(BlisterProblem problem, double[] gains, double[] slopes, int[] relaxed) {
+        int size = problem.size();
+        int[] newAmounts = new int[size];
+        Arrays.fill(newAmounts, BlisterProblem.DISABLED);
+        long remainingNew = problem.getNewCapacity();
+        long remainingOld = problem.getOldCapacity();
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int index = 0; index < size; index++) {
+                if (newAmounts[index] != BlisterProblem.DISABLED
+                        || (pass == 0 && relaxed[index] == BlisterProblem.DISABLED)) {
+                    continue;
+                }
+                int requested = problem.getRequestedAmount(index);
+                long lowest = Math.max(problem.getMinimumNewAmount(index), requested - remainingOld);
+                long highest = Math.min(requested, remainingNew);
+                if (lowest > highest) {
+                    continue;
+                }
+                long preferred = pass == 0 ? relaxed[index] : slopes[index] > 0 ? highest : lowest;
+                int newAmount = (int) Math.max(lowest, Math.min(highest, preferred));
+                if (gains[index] + slopes[index] * newAmount <= 0.0d) {
+                    continue;
+                }
+                newAmounts[index] = newAmount;
+                remainingNew -= newAmount;
+                remainingOld -= requested - newAmount;
+            }
+        }
+
+        for (int index = 0; index < size; index++) {
+            if (newAmounts[index] == BlisterProblem.DISABLED) {
+                continue;
+            }
+            if (slopes[index] > 0) {
+                int shift = (int) Math.min(problem.getRequestedAmount(index) - newAmounts[index], remainingNew);
+                newAmounts[index] += shift;
+                remainingNew -= shift;
+                remainingOld += shift;
+            } else if (slopes[index] < 0) {
+                int shift = (int) Math.min(newAmounts[index] - problem.getMinimumNewAmount(index), remainingOld);
+                newAmounts[index] -= shift;
+                remainingNew += shift;
+                remainingOld -= shift;
+            }
+        }
+        return newAmounts;
+    }
+
+    static final class Solution {
+        final int[] newAmounts;
+        final double upperBound;
+        /**
+         * True if the dual bound proves the allocation optimal.
+         */
+        final boolean optimal;
+        final int iterations;
+
+        Solution(int[] newAmounts, double upperBound, boolean optimal, int iterations) {
+            this.newAmounts = newAmounts;
+            this.upperBound = upperBound;
+            this.optimal = optimal;
+            this.iterations = iterations;
+        }
+    }
+}
@@ -0,0 +1,795 @@
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Default {@link SolverBackend}, which builds the blister model as MIP and solves it with the branch-and-bound of
+ * ojalgo.
+ */
+public final class OjAlgoBackend implements SolverBackend {
+
+    static final String NAME = "ojalgo-mip";
+
+    private static final BigDecimal BIG_INT = BigDecimal.valueOf(1_000_000);
+    /**
+     * The fulfillment weights are multiples of 1/64, so fulfillment values closer than this are equal.
+     */
+    private static final double FULFILLMENT_TOLERANCE = 1.0d / 128;
+
+    static {
+        // The integrations of ojalgo are global: every ExpressionsBasedModel in the JVM, also the ones of other code,
+        // asks this hook whether it solves the model before it picks its own solver. The hook only counts the models of
+        // solves tracked here and claims the ones whose options were cancelled, other models pay a map lookup while a
+        // solve is tracked and nothing otherwise. It is registered once instead of per solve, since
+        // ojalgo keeps its integrations in a plain list which must not change while other threads solve. Code which
+        // calls ExpressionsBasedModel.clearIntegrations() removes it, cancelled solves then run to their end.
+        ExpressionsBasedModel.addIntegration(NodeHook.INSTANCE);
+    }
+
+    private OrderOptimizer.Formulation formulation = OrderOptimizer.Formulation.BIG_M;
+    private boolean warmStartEnabled;
+    private boolean validationEnabled;
+    private boolean lexicographic;
+    private boolean dominanceCutsEnabled;
+
+    public void setFormulation(OrderOptimizer.Formulation formulation) {
+        this.formulation = Objects.requireNonNull(formulation);
+    }
+
+    OrderOptimizer.Formulation getFormulation() {
+        return formulation;
+    }
+
+    /**
+     * @param warmStartEnabled true to seed the MIP with the date-ordered greedy allocation as first incumbent
+     */
+    public void setWarmStartEnabled(boolean warmStartEnabled) {
+        this.warmStartEnabled = warmStartEnabled;
+    }
+
+    /**
+     * @param validationEnabled true to validate every solution against its model and print the validation and the
+     * solver result to standard out
+     */
+    public void setValidationEnabled(boolean validationEnabled) {
+        this.validationEnabled = validationEnabled;
+    }
+
+    /**
+     * @param lexicographic true to solve in two stages instead of the weighted objective: first the fulfillment is
+     * maximised, then the new/old split under the constraint that the fulfillment stays optimal. Each stage has an
+     * objective of one scale, which solves faster and more stably than the 10,000-weighted sum. Both orders agree
+     * unless a batch is so large that the split outweighs fulfilling the youngest orders.
+     */
+    public void setLexicographic(boolean lexicographic) {
+        this.lexicographic = lexicographic;
+    }
+
+    /**
+     * @param dominanceCutsEnabled true to require every order to be enabled if a later order it dominates is, see
+     * {@link #dominates(BlisterProblem, int, int)}
+     */
+    public void setDominanceCutsEnabled(boolean dominanceCutsEnabled) {
+        this.dominanceCutsEnabled = dominanceCutsEnabled;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * The optimal allocations of the formulations may differ in ties, the lexicographic objective may even prefer
+     * another allocation, so all of them are part of the settings.
+     */
+    @Override
+    public String getSettings(BlisterProblem problem) {
+        return NAME + " " + formulation + (lexicographic ? " lexicographic" : "")
+                + (dominanceCutsEnabled ? " dominance-cuts" : "") + (warmStartEnabled ? " warm-start" : "");
+    }
+
+    @Override
+    public boolean supports(BlisterProblem problem) {
+        return true;
+    }
+
+    @Override
+    public Allocation solve(BlisterProblem problem, long timeLimitMillis, SolveListener listener) {
+        return solve(problem, timeLimitMillis, listener, new SolveCancellation());
+    }
+
+    /**
+     * A cancellation aborts the branch-and-bound at its next node, see {@link NodeHook}.
+     */
+    @Override
+    public Allocation solve(BlisterProblem problem, long timeLimitMillis, SolveListener listener,
+            SolveCancellation cancellation) {
+        cancellation.checkNotCancelled();
+        long start = System.nanoTime();
+        int[] warmStart = warmStartEnabled ? GreedyAllocator.allocate(problem) : null;
+        MipModel mipModel = lexicographic
+                ? buildMipModel(problem, BigDecimal.ONE, null, null, warmStart)
+                : buildMipModel(problem, warmStart);
+        Stage stage = maximise(mipModel, start, timeLimitMillis, listener, cancellation);
+        Optimisation.Result result = stage.result;
+        if (isLimited(problem, timeLimitMillis) && !result.getState().isFeasible()) {
+            // Out of time before the first incumbent, the greedy allocation is always feasible
+            return Allocation.of(problem, GreedyAllocator.allocate(problem), Allocation.Status.FEASIBLE,
+                    problem.upperBound());
+        }
+        if (result.getState().isFailure()) {
+            throw new IllegalStateException("Optimized data wrong: " + result);
+        }
+
+        int[] newAmounts = stage.newAmounts;
+        Allocation.Status status = Allocation.statusOf(result.getState());
+        if (lexicographic && remainingMillis(start, timeLimitMillis) > 0) {
+            // Second stage, seeded with the first one which satisfies its fulfillment constraint
+            long splitStart = System.nanoTime();
+            MipModel splitModel = buildMipModel(problem, null, problem.getConfig().getShortTimeWeight(),
+                    problem.getConfig().getLongTimeWeight(), newAmounts);
+            splitModel.fulfillment.lower(fulfillmentOf(problem, newAmounts) - FULFILLMENT_TOLERANCE);
+            Stage split = maximise(splitModel, splitStart, remainingMillis(start, timeLimitMillis), listener,
+                    cancellation);
+            if (split.newAmounts != null) {
+                newAmounts = split.newAmounts;
+                if (!split.result.getState().isOptimal()) {
+                    status = Allocation.Status.FEASIBLE;
+                }
+            } else {
+                status = Allocation.Status.FEASIBLE;
+            }
+        } else if (lexicographic) {
+            status = Allocation.Status.FEASIBLE;
+        }
+
+        Allocation allocation = Allocation.of(problem, newAmounts, status);
+        if (isLimited(problem, timeLimitMillis) && allocation.getStatus() != Allocation.Status.OPTIMAL) {
+            allocation = allocation.withUpperBound(problem.upperBound());
+        }
+        return allocation;
+    }
+
+    /**
+     * Solves the model within the time limit and reports its metrics. The build time is measured from
+     * {@code buildStart}.
+     *
+     * @throws java.util.concurrent.CancellationException if the solve was cancelled
+     */
+    private Stage maximise(MipModel mipModel, long buildStart, long timeLimitMillis, SolveListener listener,
+            SolveCancellation cancellation) {
+        ExpressionsBasedModel model = mipModel.model;
+        if (timeLimitMillis != NO_TIME_LIMIT) {
+            model.options.time_abort = Math.max(remainingMillis(buildStart, timeLimitMillis), 0L);
+        }
+        // Counted before the solve, the presolver marks constraints as redundant
+        int variableCount = model.countVariables();
+        int constraintCount = (int) model.constraints().count();
+        long solveStart = System.nanoTime();
+        NodeHook.INSTANCE.track(model.options);
+        cancellation.onCancel(() -> NodeHook.INSTANCE.cancel(model.options));
+        Optimisation.Result result;
+        long nodes;
+        try {
+            result = model.maximise();
+        } finally {
+            cancellation.onCancel(null);
+            nodes = NodeHook.INSTANCE.release(model.options);
+        }
+        cancellation.checkNotCancelled();
+        long extractStart = System.nanoTime();
+        if (validationEnabled) {
+            System.out.println(model.validate(result));
+            System.out.println(result);
+        }
+        int[] newAmounts = result.getState().isFeasible() ? mipModel.newAmounts() : null;
+        if (listener != null) {
+            listener.solved(new SolveMetrics(NAME, mipModel.problem.size(), solveStart - buildStart,
+                    extractStart - solveStart, System.nanoTime() - extractStart, variableCount, constraintCount, nodes,
+                    result.getState()));
+        }
+        return new Stage(result, newAmounts);
+    }
+
+    private static long remainingMillis(long start, long timeLimitMillis) {
+        if (timeLimitMillis == NO_TIME_LIMIT) {
+            return NO_TIME_LIMIT;
+        }
+        return timeLimitMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static double fulfillmentOf(BlisterProblem problem, int[] newAmounts) {
+        double fulfillment = 0.0d;
+        for (int index = 0; index < newAmounts.length; index++) {
+            if (newAmounts[index] != BlisterProblem.DISABLED) {
+                fulfillment += problem.fulfillmentCoefficientOf(index);
+            }
+        }
+        return fulfillment;
+    }
+
+    /**
+     * Builds the MIP of the batch with the configured formulation, seeded with the greedy allocation if warm start is
+     * enabled.
+     */
+    MipModel buildMipModel(BlisterProblem problem) {
+        return buildMipModel(problem, warmStartEnabled ? GreedyAllocator.allocate(problem) : null);
+    }
+
+    /**
+     * @param warmStart new amounts to seed as variable values, may be null
+     * @return the MIP of the batch with the weighted objective of its {@link OptimizerConfig}
+     */
+    private MipModel buildMipModel(BlisterProblem problem, int[] warmStart) {
+        OptimizerConfig config = problem.getConfig();
+        return buildMipModel(problem, config.getFulfillmentWeight(), config.getShortTimeWeight(),
+                config.getLongTimeWeight(), warmStart);
+    }
+
+    /**
+     * @param fulfillmentWeight weight of the fulfillment in the objective, null to leave it out
+     * @param shortTimeWeight weight of the split of orders with longtime value, null to leave it out
+     * @param longTimeWeight weight of the split of orders without longtime value, null to leave it out
+     * @param warmStart new amounts to seed as variable values, may be null
+     */
+    private MipModel buildMipModel(BlisterProblem problem, BigDecimal fulfillmentWeight, BigDecimal shortTimeWeight,
+            BigDecimal longTimeWeight, int[] warmStart) {
+        Optimisation.Options options = new Optimisation.Options();
+        options.mip_gap = problem.getConfig().getMipGap();
+        options.iterations_abort = (int) Math.min(problem.getConfig().getIterationLimit(), Integer.MAX_VALUE);
+        final ExpressionsBasedModel model = new ExpressionsBasedModel(options);
+
+        // Object function
+        Expression orderFulfillment = model.addExpression("object_enabled")
+                .weight(fulfillmentWeight);
+        Expression shortTimeFulfillment = model.addExpression("object_shortTime")
+                .weight(shortTimeWeight);
+        Expression longTimeFulfillment = model.addExpression("object_longTime")
+                .weight(longTimeWeight);
+
+        Variable constantBigInt = null;
+        if (formulation == OrderOptimizer.Formulation.BIG_M) {
+            constantBigInt = addConstantBigInt(model);
+        }
+        /*Variable constantBigInt = model.addVariable("constant_big_int")
+                .integer(true)
+                .level(BIG_INT);*/
+
+        // n_1 + ,..., + n_n <= N
+        Expression allNewBlisterAreLowerOrEqualsMaximum = model.addExpression("newBlistersMaximum")
+                .upper(BigDecimal.valueOf(problem.getNewCapacity()));
+        // a_1 + ,..., + a_n <= A
+        Expression allOldBlisterAreLowerOrEqualsMaximum = model.addExpression("oldBlistersMaximum")
+                .upper(BigDecimal.valueOf(problem.getOldCapacity()));
+
+        Variable[] enabledVariables = new Variable[problem.size()];
+        Variable[] newAmountVariables = new Variable[problem.size()];
+        int[][] classes = formulation == OrderOptimizer.Formulation.EQUIVALENCE_CLASSES
+                ? equivalenceClassesOf(problem) : new int[0][];
+        boolean[] aggregated = new boolean[problem.size()];
+        for (int[] indices : classes) {
+            for (int index : indices) {
+                aggregated[index] = true;
+            }
+        }
+        for (int index = 0; index < problem.size(); index++) {
+            /*Variable enabled = model.addVariable("enabled_" + index)
+                    .binary();*/
+            // An order of an equivalence class only has a share, its class counts the enabled orders
+            Variable enabled = aggregated[index]
+                    ? Variable.make("enabledShare_" + index).lower(BigDecimal.ZERO).upper(BigDecimal.ONE)
+                    : Variable.makeBinary("enabled_" + index);
+            model.addVariable(enabled);
+            enabledVariables[index] = enabled;
+            if (warmStart != null) {
+                enabled.setValue(warmStart[index] != BlisterProblem.DISABLED ? BigDecimal.ONE : BigDecimal.ZERO);
+            }
+
+            // Share of new blisters, either as fraction (longtime) or as count
+            Variable newAmount;
+            double shareFactor;
+            if (aggregated[index]) {
+                newAmount = addNewShare(model, index, enabled, problem.getRequestedAmount(index),
+                        problem.getMinimumNewAmount(index));
+                if (warmStart != null) {
+                    newAmount.setValue(Math.max(warmStart[index], 0));
+                }
+                shareFactor = problem.getRequestedAmount(index) > 0 ? 1.0d / problem.getRequestedAmount(index) : 0.0d;
+            } else if (formulation != OrderOptimizer.Formulation.BIG_M) {
+                newAmount = addNewCount(model, String.valueOf(index), enabled, problem.getRequestedAmount(index),
+                        problem.getMinimumNewAmount(index), allNewBlisterAreLowerOrEqualsMaximum,
+                        allOldBlisterAreLowerOrEqualsMaximum);
+                if (warmStart != null) {
+                    newAmount.setValue(Math.max(warmStart[index], 0));
+                }
+                shareFactor = problem.getRequestedAmount(index) > 0 ? 1.0d / problem.getRequestedAmount(index) : 0.0d;
+            } else {
+                newAmount = addLongtime(model, String.valueOf(index), enabled, problem.getRequestedAmount(index),
+                        problem.getLongtimeSlack(index), constantBigInt, allNewBlisterAreLowerOrEqualsMaximum,
+                        allOldBlisterAreLowerOrEqualsMaximum, warmStart != null ? warmStart[index] : null);
+                shareFactor = 1.0d;
+            }
+            newAmountVariables[index] = newAmount;
+
+            // Update Object-function
+            orderFulfillment
+                    .set(enabled, problem.fulfillmentCoefficientOf(index));
+            if (problem.isLongtimeValueSet(index)) {
+                shortTimeFulfillment
+                        .set(newAmount, problem.shortTimeCoefficientOf(index) * shareFactor);
+            } else {
+                longTimeFulfillment
+                        .set(newAmount, problem.longTimeCoefficientOf(index) * shareFactor);
+            }
+        }
+
+        if (dominanceCutsEnabled) {
+            addDominanceCuts(model, problem, enabledVariables, aggregated);
+        }
+
+        EquivalenceClass[] equivalenceClasses = new EquivalenceClass[classes.length];
+        for (int number = 0; number < classes.length; number++) {
+            equivalenceClasses[number] = addEquivalenceClass(model, number, classes[number], problem,
+                    enabledVariables, newAmountVariables, allNewBlisterAreLowerOrEqualsMaximum,
+                    allOldBlisterAreLowerOrEqualsMaximum, warmStart);
+        }
+        return new MipModel(model, problem, formulation, orderFulfillment, enabledVariables, newAmountVariables,
+                equivalenceClasses);
+    }
+
+    /**
+     * The bound of an interrupted solve is not taken from the LP relaxation: ojalgo needs minutes for the relaxation
+     * of a few hundred orders, far beyond the time limit.
+     *
+     * @return true if the solve may stop before it proves its allocation optimal
+     */
+    static boolean isLimited(BlisterProblem problem, long timeLimitMillis) {
+        return timeLimitMillis != NO_TIME_LIMIT || problem.getConfig().getIterationLimit() != OptimizerConfig.NO_LIMIT;
+    }
+
+    /**
+     * @return the constant big-M of the {@link OrderOptimizer.Formulation#BIG_M} formulation, shared by all orders
+     */
+    static Variable addConstantBigInt(ExpressionsBasedModel model) {
+        Variable constantBigInt = Variable.make("constant_big_int").integer(true).level(BIG_INT);
+        model.addVariable(constantBigInt);
+        return constantBigInt;
+    }
+
+    /**
+     * Adds the share of new blisters as fraction of the requested amount. The old blisters are bound to it with big-M
+     * constraints.
+     *
+     * @param key suffix which makes the names of the variables and their constraints unique within the model
+     * @param warmStart new amount to seed as variable values, {@link BlisterProblem#DISABLED} to seed the disabled
+     * order, null to seed nothing
+     * @return the longtime variable
+     */
+    static Variable addLongtime(ExpressionsBasedModel model, String key, Variable enabled, int requestedAmount,
+            double longtimeSlack, Variable constantBigInt, Expression allNewBlisterAreLowerOrEqualsMaximum,
+            Expression allOldBlisterAreLowerOrEqualsMaximum, Integer warmStart) {
+        /*Variable longtime = model.addVariable("longtime_" + index)
+                .lower(0);*/
+        Variable longtime = Variable.make("longtime_" + key)
+                .lower(0);
+        model.addVariable(longtime);
+
+        // enabled = 1 -> minimum <= longtime <= 1
+        bindLongtimeToEnabled(model, key, enabled, longtime, longtimeSlack);
+
+        /*Variable oldDeduction = model.addVariable("oldDeduction_" + index)
+                .integer(true)
+                .lower(BigDecimal.ZERO);*/
+
+        Variable oldDeduction = Variable.make("oldDeduction_" + key)
+                .integer(true)
+                .lower(BigDecimal.ZERO);
+        model.addVariable(oldDeduction);
+        // oldDeduction = enabled * oldValue
+        bindOldDeductionToEnabledAndOldValue(model, key, enabled, oldDeduction, longtime, constantBigInt,
+                requestedAmount);
+
+        allNewBlisterAreLowerOrEqualsMaximum
+                .set(longtime, requestedAmount);
+        allOldBlisterAreLowerOrEqualsMaximum
+                .set(oldDeduction, BigDecimal.ONE);
+
+        if (warmStart != null) {
+            if (warmStart == BlisterProblem.DISABLED) {
+                longtime.setValue(BigDecimal.ZERO);
+                oldDeduction.setValue(BigDecimal.ZERO);
+            } else {
+                longtime.setValue(requestedAmount > 0 ? (double) warmStart / requestedAmount : 1.0d);
+                oldDeduction.setValue(requestedAmount - warmStart);
+            }
+        }
+        return longtime;
+    }
+
+    /**
+     * Adds the number of new blisters as integer bounded by {@code minimum * enabled} and
+     * {@code requestedAmount * enabled}. The old blisters are {@code requestedAmount * enabled - newCount} and need no
+     * variable of their own.
+     *
+     * @param key suffix which makes the names of the variable and its constraints unique within the model
+     * @return the new count variable
+     */
+    static Variable addNewCount(ExpressionsBasedModel model, String key, Variable enabled, int requestedAmount,
+            int minimumNewAmount, Expression allNewBlisterAreLowerOrEqualsMaximum,
+            Expression allOldBlisterAreLowerOrEqualsMaximum) {
+        Variable newCount = Variable.make("newCount_" + key)
+                .integer(true)
+                .lower(BigDecimal.ZERO)
+                .upper(BigDecimal.valueOf(requestedAmount));
+        model.addVariable(newCount);
+
+        // enabled = 1 -> minimum <= newCount <= requestedAmount, enabled = 0 -> newCount = 0
+        model.addExpression("newCount_minimum_" + key)
+                .set(newCount, BigDecimal.ONE)
+                .set(enabled, BigDecimal.valueOf(-minimumNewAmount))
+                .lower(BigDecimal.ZERO);
+        model.addExpression("newCount_maximum_" + key)
+                .set(newCount, BigDecimal.ONE)
+                .set(enabled, BigDecimal.valueOf(-requestedAmount))
+                .upper(BigDecimal.ZERO);
+
+        allNewBlisterAreLowerOrEqualsMaximum
+                .set(newCount, BigDecimal.ONE);
+        allOldBlisterAreLowerOrEqualsMaximum
+                .set(newCount, BigDecimal.valueOf(-1))
+                .set(enabled, BigDecimal.valueOf(requestedAmount));
+        return newCount;
+    }
+
+    /**
+     * Orders with the same requested amount, minimum of new blisters and kind of longtime value are interchangeable
+     * except for their position, and both their fulfillment weight and the coefficient of their new blisters fall
+     * with the position. Of such orders, an optimal allocation therefore fulfills the oldest ones and gives them the
+     * new blisters first.
+     *
+     * @return the indices of every class of at least two equivalent orders, ascending
+     */
+    static int[][] equivalenceClassesOf(BlisterProblem problem) {
+        Map<Long, List<Integer>> classes = new LinkedHashMap<>();
+        for (int index = 0; index < problem.size(); index++) {
+            long key = (long) problem.getRequestedAmount(index) << 32
+                    | (long) problem.getMinimumNewAmount(index) << 1
+                    | (problem.isLongtimeValueSet(index) ? 1L : 0L);
+            classes.computeIfAbsent(key, ignored -> new ArrayList<>()).add(index);
+        }
+        return classes.values().stream()
+                .filter(indices -> indices.size() > 1)
+                .map(indices -> indices.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    /**
+     * Binds every order to the closest earlier order dominating it. From the seventh order on all fulfillment weights
+     * are equal, so without the cuts the branch-and-bound explores every choice among such orders.
+     *
+     * @param aggregated orders of an equivalence class, which are ordered by their class already
+     */
+    private static void addDominanceCuts(ExpressionsBasedModel model, BlisterProblem problem,
+            Variable[] enabledVariables, boolean[] aggregated) {
+        for (int later = 1; later < problem.size(); later++) {
+            if (aggregated[later]) {
+                continue;
+            }
+            for (int earlier = later - 1; earlier >= 0; earlier--) {
+                if (!aggregated[earlier] && dominates(problem, earlier, later)) {
+                    // enabled_later = 1 -> enabled_earlier = 1
+                    model.addExpression("dominance_" + earlier + "_" + later)
+                            .set(enabledVariables[earlier], BigDecimal.ONE)
+                            .set(enabledVariables[later], BigDecimal.valueOf(-1))
+                            .lower(BigDecimal.ZERO);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * An earlier order dominates a later one of the same kind of longtime value if it requests no more blisters and
+     * needs neither more new blisters nor a larger share of them. Swapping the later order for the earlier one frees
+     * capacity and loses no objective, since the weights and the coefficients per requested blister of an order do not
+     * grow with its position.
+     */
+    static boolean dominates(BlisterProblem problem, int earlier, int later) {
+        int earlierRequested = problem.getRequestedAmount(earlier);
+        int laterRequested = problem.getRequestedAmount(later);
+        int earlierMinimum = problem.getMinimumNewAmount(earlier);
+        int laterMinimum = problem.getMinimumNewAmount(later);
+        return earlier < later
+                && problem.isLongtimeValueSet(earlier) == problem.isLongtimeValueSet(later)
+                && earlierRequested <= laterRequested
+                && earlierMinimum <= laterMinimum
+                && (long) earlierMinimum * laterRequested <= (long) laterMinimum * earlierRequested;
+    }
+
+    /**
+     * Adds the continuous share of new blisters of an aggregated order, bounded like {@link #addNewCount} but not part
+     * of the capacities, which are charged through the totals of its class.
+     */
+    private static Variable addNewShare(ExpressionsBasedModel model, int index, Variable enabledShare,
+            int requestedAmount, int minimumNewAmount) {
+        Variable newShare = Variable.make("newShare_" + index)
+                .lower(BigDecimal.ZERO)
+                .upper(BigDecimal.valueOf(requestedAmount));
+        model.addVariable(newShare);
+        model.addExpression("newShare_minimum_" + index)
+                .set(newShare, BigDecimal.ONE)
+                .set(enabledShare, BigDecimal.valueOf(-minimumNewAmount))
+                .lower(BigDecimal.ZERO);
+        model.addExpression("newShare_maximum_" + index)
+                .set(newShare, BigDecimal.ONE)
+                .set(enabledShare, BigDecimal.valueOf(-requestedAmount))
+                .upper(BigDecimal.ZERO);
+        return newShare;
+    }
+
+    /**
+     * Adds the integer number of enabled orders and the integer total of new blisters of a class. The shares of its
+     * orders sum up to them, and since weights and coefficients fall with the position, the relaxation fills the
+     * shares from the oldest order on. Branching happens on the two totals only, so the branch-and-bound does not
+     * explore permutations of equal orders.
+     */
+    private static EquivalenceClass addEquivalenceClass(ExpressionsBasedModel model, int number, int[] indices,
+            BlisterProblem problem, Variable[] enabledShares, Variable[] newShares,
+            Expression allNewBlisterAreLowerOrEqualsMaximum, Expression allOldBlisterAreLowerOrEqualsMaximum,
+            int[] warmStart) {
+        int requestedAmount = problem.getRequestedAmount(indices[0]);
+        Variable count = Variable.make("classCount_" + number)
+                .integer(true)
+                .lower(BigDecimal.ZERO)
+                .upper(BigDecimal.valueOf(indices.length));
+        Variable newTotal = Variable.make("classNewCount_" + number)
+                .integer(true)
+                .lower(BigDecimal.ZERO)
+                .upper(BigDecimal.valueOf((long) requestedAmount * indices.length));
+        model.addVariable(count);
+        model.addVariable(newTotal);
+
+        Expression countSum = model.addExpression("classCount_sum_" + number)
+                .set(count, BigDecimal.valueOf(-1))
+                .level(BigDecimal.ZERO);
+        Expression newSum = model.addExpression("classNewCount_sum_" + number)
+                .set(newTotal, BigDecimal.valueOf(-1))
+                .level(BigDecimal.ZERO);
+        int enabledCount = 0;
+        int newCount = 0;
+        for (int index : indices) {
+            countSum.set(enabledShares[index], BigDecimal.ONE);
+            newSum.set(newShares[index], BigDecimal.ONE);
+            if (warmStart != null && warmStart[index] != BlisterProblem.DISABLED) {
+                enabledCount++;
+                newCount += warmStart[index];
+            }
+        }
+        if (warmStart != null) {
+            count.setValue(enabledCount);
+            newTotal.setValue(newCount);
+        }
+
+        allNewBlisterAreLowerOrEqualsMaximum
+                .set(newTotal, BigDecimal.ONE);
+        allOldBlisterAreLowerOrEqualsMaximum
+                .set(newTotal, BigDecimal.valueOf(-1))
+                .set(count, BigDecimal.valueOf(requestedAmount));
+        return new EquivalenceClass(indices, count, newTotal);
+    }
+
+    private static void bindLongtimeToEnabled(ExpressionsBasedModel model, String key, Variable enabled,
+            Variable longtime, double longtimeSlack) {
+        model.addExpression("enabled_longtime_" + key)
+                .set(longtime, BigDecimal.ONE)
+                .set(enabled, BigDecimal.valueOf(-1))
+                .lower(longtimeSlack)
+                .upper(BigDecimal.ZERO);
+    }
+
+    private static void bindOldDeductionToEnabledAndOldValue(ExpressionsBasedModel model, String key, Variable enabled,
+            Variable oldDeduction, Variable longtime, Variable constantBigInt, int requestedAmount) {
+       /* Variable constantReqAmount = model.addVariable("constant_req_int_" + key)
+                .integer(true)
+                .level(BigDecimal.valueOf(requestedAmount));*/
+        Variable constantReqAmount = Variable.make("constant_req_int_" + key)
+                .integer(true)
+                .level(BigDecimal.valueOf(requestedAmount));
+        model.addVariable(constantReqAmount);
+
+        model.addExpression("oldDeduction_2_" + key)
+                .set(oldDeduction, BigDecimal.valueOf(-1))
+                .set(enabled, BIG_INT)
+                .lower(BigDecimal.ZERO);
+        model.addExpression("oldDeduction_3_" + key)
+                .set(oldDeduction, BigDecimal.valueOf(-1))
+                .set(constantReqAmount, BigDecimal.ONE)
+                .set(longtime, BigDecimal.valueOf(-requestedAmount))
+                .lower(BigDecimal.ZERO);
+        model.addExpression("oldDeduction_4_" + key)
+                .set(oldDeduction, BigDecimal.valueOf(-1))
+                .set(constantReqAmount, BigDecimal.ONE)
+                .set(longtime, BigDecimal.valueOf(-requestedAmount))
+                .set(constantBigInt, BigDecimal.valueOf(-1))
+                .set(enabled, BIG_INT)
+                .upper(BigDecimal.ZERO);
+    }
+
+    /**
+     * Result of one solved model.
+     */
+    private static final class Stage {
+        final Optimisation.Result result;
+        /**
+         * The new amounts of the solution, null if the solver found none.
+         */
+        final int[] newAmounts;
+
+        Stage(Optimisation.Result result, int[] newAmounts) {
+            this.result = result;
+            this.newAmounts = newAmounts;
+        }
+    }
+
+    /**
+     * Node hook of the branch-and-bound. The solver of ojalgo solves every node as a model of its own, which selects
+     * its solver through the integrations and shares the options of the root model. The hook counts the models of a
+     * tracked solve which reach a solver, the root included; nodes which the presolver settles on its own never ask
+     * it. Once the options of a model are cancelled, its remaining nodes are claimed here and reported infeasible
+     * without solving them, so the search is pruned at every open node. The maps are concurrent, so the cancelling
+     * thread publishes to the solving threads.
+     */
+    static final class NodeHook extends ExpressionsBasedModel.Integration<Optimisation.Solver> {
+
+        static final NodeHook INSTANCE = new NodeHook();
+
+        private final Map<Optimisation.Options, AtomicLong> nodes = new ConcurrentHashMap<>();
+        private final Set<Optimisation.Options> cancelled = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        void track(Optimisation.Options options) {
+            nodes.put(options, new AtomicLong());
+        }
+
+        void cancel(Optimisation.Options options) {
+            cancelled.add(options);
+        }
+
+        /**
+         * @return the nodes counted since {@link #track}, {@link SolveMetrics#UNKNOWN} if the options were not tracked
+         */
+        long release(Optimisation.Options options) {
+            cancelled.remove(options);
+            AtomicLong count = nodes.remove(options);
+            return count != null ? count.get() : SolveMetrics.UNKNOWN;
+        }
+
+        @Override
+        public boolean isCapable(ExpressionsBasedModel model) {
+            if (nodes.isEmpty()) {
+                return false;
+            }
+            AtomicLong count = nodes.get(model.options);
+            if (count != null) {
+                count.incrementAndGet();
+            }
+            return !cancelled.isEmpty() && cancelled.contains(model.options);
+        }
+
+        @Override
+        public Optimisation.Solver build(ExpressionsBasedModel model) {
+            int variableCount = model.countVariables();
+            return initial -> new Optimisation.Result(Optimisation.State.INFEASIBLE, Double.NaN,
+                    Primitive64Array.make(variableCount));
+        }
+    }
+
+    /**
+     * Equivalent orders aggregated into the number of enabled orders and their total of new blisters.
+     */
+    private static final class EquivalenceClass {
+        private final int[] indices;
+        private final Variable count;
+        private final Variable newTotal;
+
+        EquivalenceClass(int[] indices, Variable count, Variable newTotal) {
+            this.indices = indices;
+            this.count = count;
+            this.newTotal = newTotal;
+        }
+
+        /**
+         * Fulfills the oldest orders of the class, each with its minimum of new blisters, and hands the rest of the
+         * new blisters out from the oldest order on.
+         */
+        void expand(BlisterProblem problem, int[] newAmounts) {
+            int enabledCount = (int) Math.round(count.getValue().doubleValue());
+            int remaining = (int) Math.round(newTotal.getValue().doubleValue());
+            for (int position = 0; position < indices.length; position++) {
+                newAmounts[indices[position]] = position < enabledCount
+                        ? problem.getMinimumNewAmount(indices[position]) : BlisterProblem.DISABLED;
+                if (position < enabledCount) {
+                    remaining -= newAmounts[indices[position]];
+                }
+            }
+            for (int position = 0; position < enabledCount && remaining > 0; position++) {
+                int index = indices[position];
+                int added = Math.min(problem.getRequestedAmount(index) - newAmounts[index], remaining);
+                newAmounts[index] += added;
+                remaining -= added;
+            }
+        }
+    }
+
+    /**
+     * MIP of one batch with the variables needed to read the allocation from its solution.
+     */
+    static final class MipModel {
+        final ExpressionsBasedModel model;
+        final BlisterProblem problem;
+        /**
+         * Weighted sum of the enabled orders, the objective of the first lexicographic stage.
+         */
+        final Expression fulfillment;
+        private final OrderOptimizer.Formulation formulation;
+        private final Variable[] enabledVariables;
+        private final Variable[] newAmountVariables;
+        private final EquivalenceClass[] equivalenceClasses;
+
+        MipModel(ExpressionsBasedModel model, BlisterProblem problem, OrderOptimizer.Formulation formulation,
+                Expression fulfillment, Variable[] enabledVariables, Variable[] newAmountVariables,
+                EquivalenceClass[] equivalenceClasses) {
+            this.model = model;
+            this.problem = problem;
+            this.formulation = formulation;
+            this.fulfillment = fulfillment;
+            this.enabledVariables = enabledVariables;
+            this.newAmountVariables = newAmountVariables;
+            this.equivalenceClasses = equivalenceClasses;
+        }
+
+        /**
+         * @param result the solution of {@link #model}, whose values were written back to its variables
+         */
+        Allocation extract(Optimisation.Result result) {
+            return Allocation.of(problem, newAmounts(), Allocation.statusOf(result.getState()));
+        }
+
+        /**
+         * @return the new amounts of the solution written back to the variables, {@link BlisterProblem#DISABLED} for
+         * orders which are not fulfilled
+         */
+        int[] newAmounts() {
+            int[] newAmounts = new int[problem.size()];
+            for (int index = 0; index < problem.size(); index++) {
+                if (enabledVariables[index].getValue().intValue() != 1) {
+                    newAmounts[index] = BlisterProblem.DISABLED;
+                    continue;
+                }
+                double newAmount = newAmountVariables[index].getValue().doubleValue();
+                if (formulation == OrderOptimizer.Formulation.BIG_M) {
+                    newAmount *= problem.getRequestedAmount(index);
+                }
+                newAmounts[index] = (int) Math.round(newAmount);
+            }
+            // Overwrites the shares of the aggregated orders
+            for (EquivalenceClass equivalenceClass : equivalenceClasses) {
+                equivalenceClass.expand(problem, newAmounts);
+            }
+            return newAmounts;
+        }
+    }
+}
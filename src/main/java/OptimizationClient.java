@@ -0,0 +1,13 @@
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous access to the optimization of batches. {@link OptimizationService} is the in-process client, a remote
+ * client sends the batches to a service behind an HTTP layer.
+ */
+public interface OptimizationClient {
+
+    /**
+     * @return the allocation of the batch, which is not assigned to its orders
+     */
+    CompletableFuture<Allocation> allocate(OrderOptimizer.BlisterData blisterData);
+}
@@ -0,0 +1,123 @@
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Embedded service in front of an {@link OrderOptimizer}, for callers which receive batches from many concurrent
+ * planners. Every request is handled on its own virtual thread, which waits for a free solve. Requests for a batch
+ * equal to one which is still being solved wait for that solve instead of starting another one. The number of
+ * concurrent solves is capped, by default to the number of cores.
+ */
+public final class OptimizationService implements OptimizationClient, AutoCloseable {
+
+    private final OrderOptimizer optimizer;
+    private final ExecutorService requestExecutor;
+    private final Semaphore solvePermits;
+    private final ConcurrentMap<ResultCache.Fingerprint, CompletableFuture<Allocation>> inFlight =
+            new ConcurrentHashMap<>();
+    private final AtomicLong solveCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    public OptimizationService(OrderOptimizer optimizer) {
+        this(optimizer, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param maxConcurrentSolves solves running at once, further requests wait for a free solve
+     */
+    public OptimizationService(OrderOptimizer optimizer, int maxConcurrentSolves) {
+        if (maxConcurrentSolves <= 0) {
+            throw new IllegalArgumentException("maxConcurrentSolves must be positive: " + maxConcurrentSolves);
+        }
+        this.optimizer = Objects.requireNonNull(optimizer);
+        this.requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.solvePermits = new Semaphore(maxConcurrentSolves, true);
+    }
+
+    /**
+     * Requests for equal batches which arrive while the first one is solved share its solve. Batches are equal if
+     * they have the same canonical form, see {@link ResultCache}, whatever collection holds their orders. Each request
+     * gets the allocation bound to its own orders. The orders are read when the request arrives, later changes to the
+     * collection of the batch are not seen.
+     */
+    @Override
+    public CompletableFuture<Allocation> allocate(OrderOptimizer.BlisterData blisterData) {
+        List<OrderOptimizer.Order> sortedByDate = BlisterProblem.sortedByDate(blisterData.getOrders());
+        OrderOptimizer.BlisterData snapshot = new OrderOptimizer.BlisterData(blisterData.getNewAmount(),
+                blisterData.getOldAmount(), sortedByDate);
+        // All requests are solved by the one optimizer, so its settings need not be part of the key
+        ResultCache.Fingerprint fingerprint = ResultCache.Fingerprint.of(BlisterProblem.of(blisterData.getNewAmount(),
+                blisterData.getOldAmount(), sortedByDate, optimizer.getConfig()), "");
+        CompletableFuture<Allocation> created = new CompletableFuture<>();
+        CompletableFuture<Allocation> solve = inFlight.putIfAbsent(fingerprint, created);
+        if (solve != null) {
+            coalescedCount.incrementAndGet();
+            return solve.thenApply(allocation -> allocation.withOrders(sortedByDate));
+        }
+        try {
+            requestExecutor.execute(() -> solve(snapshot, fingerprint, created));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(fingerprint, created);
+            created.completeExceptionally(e);
+        }
+        // A caller completing its future must not complete the one shared with the coalesced requests
+        return created.thenApply(Function.identity());
+    }
+
+    private void solve(OrderOptimizer.BlisterData blisterData, ResultCache.Fingerprint fingerprint,
+            CompletableFuture<Allocation> result) {
+        Allocation allocation = null;
+        Throwable failure = null;
+        try {
+            solvePermits.acquire();
+            try {
+                solveCount.incrementAndGet();
+                allocation = optimizer.allocate(blisterData);
+            } finally {
+                solvePermits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        // Later requests for the batch start a new solve, the orders may have changed in the meantime
+        inFlight.remove(fingerprint, result);
+        if (failure != null) {
+            result.completeExceptionally(failure);
+        } else {
+            result.complete(allocation);
+        }
+    }
+
+    /**
+     * @return the number of solves started, coalesced requests not included
+     */
+    public long getSolveCount() {
+        return solveCount.get();
+    }
+
+    /**
+     * @return the number of requests which shared the solve of an equal batch
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Stops accepting requests, the running solves are completed.
+     */
+    @Override
+    public void close() {
+        requestExecutor.shutdown();
+    }
+}
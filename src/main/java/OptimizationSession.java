@@ -0,0 +1,376 @@
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the MIP of one batch alive between solves and solves it in place. An added order gets its columns and rows
+ * appended to the model, a removed order has its columns fixed to zero and taken out of the capacity rows and the
+ * objective.
+ * <p>
+ * ojalgo orders the constraints of a model by the hash of their names, and the time of its branch-and-bound varies
+ * with that order by a factor of ten and more. A session names its columns differently than a fresh model of the same
+ * batch, so either may solve it faster; keeping the model saves its build, which is small against the solve.
+ * <p>
+ * ojalgo can neither remove variables nor constraints from a model. The presolver leaves the fixed columns of removed
+ * orders out of the solver, so they only cost memory, and the model is rebuilt once they outnumber a quarter of the
+ * remaining orders. The presolver also tightens bounds and drops constraints of the model it solves: the bounds of the
+ * remaining columns are re-applied before every solve, and if the presolver fixed one of their variables or dropped
+ * one of their constraints, which can not be undone, the model is rebuilt before the next solve. A solve does not start
+ * from the previous solution: the branch-and-bound of ojalgo takes a feasible start as first incumbent and then
+ * returns suboptimal and even infeasible allocations as optimal.
+ * <p>
+ * A session solves with the profile, time limit, solve listener and formulation of its {@link OrderOptimizer} at the
+ * time it was opened. {@link OrderOptimizer.Formulation#EQUIVALENCE_CLASSES} aggregates the orders of a whole batch,
+ * sessions use {@link OrderOptimizer.Formulation#BOUNDED_NEW_COUNT} instead. Sessions are not thread-safe.
+ */
+public final class OptimizationSession {
+
+    private final OptimizerConfig config;
+    private final OrderOptimizer.Formulation formulation;
+    private final long timeLimitMillis;
+    private final SolveListener solveListener;
+    private final List<Column> columns = new ArrayList<>();
+
+    private ExpressionsBasedModel model;
+    private Expression orderFulfillment;
+    private Expression shortTimeFulfillment;
+    private Expression longTimeFulfillment;
+    private Expression allNewBlisterAreLowerOrEqualsMaximum;
+    private Expression allOldBlisterAreLowerOrEqualsMaximum;
+    private Variable constantBigInt;
+    private int newAmount;
+    private int oldAmount;
+    private int removedColumns;
+    private int sequence;
+    /**
+     * True if the last solve changed the model in a way which can only be undone by rebuilding it.
+     */
+    private boolean stale;
+
+    /**
+     * @param timeLimitMillis time limit of every solve, {@link SolverBackend#NO_TIME_LIMIT} to solve without limit
+     * @param solveListener listener for the metrics of every solve, may be null
+     */
+    OptimizationSession(OrderOptimizer.BlisterData blisterData, OptimizerConfig config,
+            OrderOptimizer.Formulation formulation, long timeLimitMillis, SolveListener solveListener) {
+        this.config = config;
+        this.formulation = formulation == OrderOptimizer.Formulation.BIG_M
+                ? formulation : OrderOptimizer.Formulation.BOUNDED_NEW_COUNT;
+        this.timeLimitMillis = Math.min(timeLimitMillis, config.getTimeLimitMillis());
+        this.solveListener = solveListener;
+        this.newAmount = blisterData.getNewAmount();
+        this.oldAmount = blisterData.getOldAmount();
+        rebuild(BlisterProblem.sortedByDate(blisterData.getOrders()));
+    }
+
+    /**
+     * @return the orders of the session sorted by date
+     */
+    public List<OrderOptimizer.Order> getOrders() {
+        List<OrderOptimizer.Order> orders = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            orders.add(column.order);
+        }
+        return Collections.unmodifiableList(orders);
+    }
+
+    public void addOrder(OrderOptimizer.Order order) {
+        int position = columns.size();
+        while (position > 0 && BlisterProblem.BY_DATE.compare(columns.get(position - 1).order, order) > 0) {
+            position--;
+        }
+        columns.add(position, addColumn(order));
+        updateObjective();
+    }
+
+    /**
+     * @return false if the order is not part of the session
+     */
+    public boolean removeOrder(OrderOptimizer.Order order) {
+        int position = indexOf(order);
+        if (position < 0) {
+            return false;
+        }
+        Column column = columns.remove(position);
+        removedColumns++;
+
+        if (removedColumns * 4 > columns.size()) {
+            rebuild(getOrders());
+            return true;
+        }
+
+        for (Variable variable : column.variables) {
+            variable.level(BigDecimal.ZERO);
+            allNewBlisterAreLowerOrEqualsMaximum.set(variable, BigDecimal.ZERO);
+            allOldBlisterAreLowerOrEqualsMaximum.set(variable, BigDecimal.ZERO);
+            orderFulfillment.set(variable, BigDecimal.ZERO);
+            shortTimeFulfillment.set(variable, BigDecimal.ZERO);
+            longTimeFulfillment.set(variable, BigDecimal.ZERO);
+        }
+        updateObjective();
+        return true;
+    }
+
+    public void setCapacities(int newAmount, int oldAmount) {
+        this.newAmount = newAmount;
+        this.oldAmount = oldAmount;
+        allNewBlisterAreLowerOrEqualsMaximum.upper(BigDecimal.valueOf(newAmount));
+        allOldBlisterAreLowerOrEqualsMaximum.upper(BigDecimal.valueOf(oldAmount));
+    }
+
+    /**
+     * Solves the current state of the batch in place and assigns the allocation to its orders. An allocation which
+     * may not be optimal because the solve hit a limit carries an upper bound, like the ones of
+     * {@link OrderOptimizer#allocate(OrderOptimizer.BlisterData)}.
+     *
+     * @return the allocation of the orders sorted by date
+     */
+    public Allocation optimize() {
+        long start = System.nanoTime();
+        if (stale) {
+            rebuild(getOrders());
+        }
+        restoreBounds();
+        List<OrderOptimizer.Order> orders = getOrders();
+        BlisterProblem problem = BlisterProblem.of(newAmount, oldAmount, orders, config);
+        if (timeLimitMillis != SolverBackend.NO_TIME_LIMIT) {
+            model.options.time_abort = Math.max(
+                    timeLimitMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), 0L);
+        }
+        // Counted before the solve, the presolver marks constraints as redundant
+        int variableCount = model.countVariables();
+        int constraintCount = (int) model.constraints().count();
+
+        long solveStart = System.nanoTime();
+        OjAlgoBackend.NodeHook.INSTANCE.track(model.options);
+        Optimisation.Result result;
+        long nodes;
+        try {
+            result = model.maximise();
+        } finally {
+            nodes = OjAlgoBackend.NodeHook.INSTANCE.release(model.options);
+        }
+        long extractStart = System.nanoTime();
+        stale = !result.getState().isFeasible() || isPresolvedIrreversibly();
+
+        Allocation allocation;
+        boolean limited = OjAlgoBackend.isLimited(problem, timeLimitMillis);
+        if (limited && !result.getState().isFeasible()) {
+            // Out of time before the first incumbent, the greedy allocation is always feasible
+            allocation = Allocation.of(problem, GreedyAllocator.allocate(problem), Allocation.Status.FEASIBLE,
+                    problem.upperBound());
+        } else if (result.getState().isFailure()) {
+            throw new IllegalStateException("Optimized data wrong: " + result);
+        } else {
+            allocation = Allocation.of(problem, newAmounts(), Allocation.statusOf(result.getState()));
+            if (limited && allocation.getStatus() != Allocation.Status.OPTIMAL) {
+                allocation = allocation.withUpperBound(problem.upperBound());
+            }
+        }
+        if (solveListener != null) {
+            solveListener.solved(new SolveMetrics(OjAlgoBackend.NAME, columns.size(), solveStart - start,
+                    extractStart - solveStart, System.nanoTime() - extractStart, variableCount, constraintCount,
+                    nodes, result.getState()));
+        }
+        allocation = allocation.withOrders(orders);
+        allocation.assignOrders();
+        return allocation;
+    }
+
+    /**
+     * @return the new amounts of the solution written back to the variables
+     */
+    private int[] newAmounts() {
+        int[] newAmounts = new int[columns.size()];
+        for (int index = 0; index < columns.size(); index++) {
+            Column column = columns.get(index);
+            if (column.enabled.getValue().intValue() != 1) {
+                newAmounts[index] = BlisterProblem.DISABLED;
+                continue;
+            }
+            double newAmount = column.share.getValue().doubleValue();
+            if (formulation == OrderOptimizer.Formulation.BIG_M) {
+                newAmount *= column.order.getRequestedAmount();
+            }
+            newAmounts[index] = (int) Math.round(newAmount);
+        }
+        return newAmounts;
+    }
+
+    /**
+     * Undoes the bounds the presolver tightened in the last solve, and resets the values of the variables to the ones
+     * ojalgo assumes for a variable without value, which it can not be given back.
+     */
+    private void restoreBounds() {
+        for (Column column : columns) {
+            for (int position = 0; position < column.variables.size(); position++) {
+                BigDecimal lowerLimit = column.lowerLimits[position];
+                BigDecimal upperLimit = column.upperLimits[position];
+                Variable variable = column.variables.get(position);
+                variable.lower(lowerLimit).upper(upperLimit);
+                if (lowerLimit != null && upperLimit != null) {
+                    variable.setValue(lowerLimit.add(upperLimit).divide(BigDecimal.valueOf(2)));
+                } else {
+                    variable.setValue(lowerLimit != null ? lowerLimit : upperLimit);
+                }
+            }
+        }
+        allNewBlisterAreLowerOrEqualsMaximum.upper(BigDecimal.valueOf(newAmount));
+        allOldBlisterAreLowerOrEqualsMaximum.upper(BigDecimal.valueOf(oldAmount));
+    }
+
+    /**
+     * The presolver fixes variables and drops constraints for good, so a model where it did so for an order of the
+     * session can not be solved again once the batch changes. A constraint of an order with two free variables is only
+     * dropped once one of them is fixed, and one with a single variable is implied by the bounds of the variable.
+     *
+     * @return true if the presolver fixed a free variable of the remaining orders or dropped a capacity row
+     */
+    private boolean isPresolvedIrreversibly() {
+        Set<Variable> freeVariables = Collections.newSetFromMap(new IdentityHashMap<>());
+        freeVariables.addAll(model.getFreeVariables());
+        for (Column column : columns) {
+            for (int position = 0; position < column.variables.size(); position++) {
+                if (!column.isFixed(position) && !freeVariables.contains(column.variables.get(position))) {
+                    return true;
+                }
+            }
+        }
+        return model.constraints().noneMatch(constraint -> constraint == allNewBlisterAreLowerOrEqualsMaximum)
+                || model.constraints().noneMatch(constraint -> constraint == allOldBlisterAreLowerOrEqualsMaximum);
+    }
+
+    private int indexOf(OrderOptimizer.Order order) {
+        for (int index = 0; index < columns.size(); index++) {
+            if (columns.get(index).order == order) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void createModel() {
+        Optimisation.Options options = new Optimisation.Options();
+        options.mip_gap = config.getMipGap();
+        options.iterations_abort = (int) Math.min(config.getIterationLimit(), Integer.MAX_VALUE);
+        model = new ExpressionsBasedModel(options);
+        orderFulfillment = model.addExpression("object_enabled")
+                .weight(config.getFulfillmentWeight());
+        shortTimeFulfillment = model.addExpression("object_shortTime")
+                .weight(config.getShortTimeWeight());
+        longTimeFulfillment = model.addExpression("object_longTime")
+                .weight(config.getLongTimeWeight());
+        constantBigInt = formulation == OrderOptimizer.Formulation.BIG_M
+                ? OjAlgoBackend.addConstantBigInt(model) : null;
+        allNewBlisterAreLowerOrEqualsMaximum = model.addExpression("newBlistersMaximum")
+                .upper(BigDecimal.valueOf(newAmount));
+        allOldBlisterAreLowerOrEqualsMaximum = model.addExpression("oldBlistersMaximum")
+                .upper(BigDecimal.valueOf(oldAmount));
+    }
+
+    /**
+     * Replaces the model by one of the given orders, without the columns of removed orders.
+     *
+     * @param orders the orders sorted by date
+     */
+    private void rebuild(List<OrderOptimizer.Order> orders) {
+        createModel();
+        columns.clear();
+        removedColumns = 0;
+        stale = false;
+        for (OrderOptimizer.Order order : orders) {
+            columns.add(addColumn(order));
+        }
+        updateObjective();
+    }
+
+    private Column addColumn(OrderOptimizer.Order order) {
+        int firstVariable = model.countVariables();
+        String key = String.valueOf(sequence++);
+        Variable enabled = Variable.makeBinary("enabled_" + key);
+        model.addVariable(enabled);
+        int requestedAmount = order.getRequestedAmount();
+        Variable share;
+        if (formulation == OrderOptimizer.Formulation.BIG_M) {
+            share = OjAlgoBackend.addLongtime(model, key, enabled, requestedAmount,
+                    BlisterProblem.longtimeSlackOf(order.getLongtimeValue()), constantBigInt,
+                    allNewBlisterAreLowerOrEqualsMaximum, allOldBlisterAreLowerOrEqualsMaximum, null);
+        } else {
+            share = OjAlgoBackend.addNewCount(model, key, enabled, requestedAmount,
+                    BlisterProblem.minimumNewAmountOf(requestedAmount, order.getLongtimeValue()),
+                    allNewBlisterAreLowerOrEqualsMaximum, allOldBlisterAreLowerOrEqualsMaximum);
+        }
+        List<Variable> variables = new ArrayList<>(
+                model.getVariables().subList(firstVariable, model.countVariables()));
+        return new Column(order, enabled, share, variables);
+    }
+
+    /**
+     * The coefficients of the objective depend on the position of an order and on the number of orders, so they are
+     * updated for all orders after every change.
+     */
+    private void updateObjective() {
+        CoefficientTable coefficients = new CoefficientTable(columns.size());
+        for (int index = 0; index < columns.size(); index++) {
+            Column column = columns.get(index);
+            int requestedAmount = column.order.getRequestedAmount();
+            double shareFactor;
+            if (formulation == OrderOptimizer.Formulation.BIG_M) {
+                shareFactor = 1.0d;
+            } else {
+                shareFactor = requestedAmount > 0 ? 1.0d / requestedAmount : 0.0d;
+            }
+            orderFulfillment.set(column.enabled, CoefficientTable.fulfillmentWeightOf(index));
+            if (column.order.getLongtimeValue() != null) {
+                shortTimeFulfillment.set(column.share, coefficients.shortTimeCoefficientOf(index) * shareFactor);
+            } else {
+                longTimeFulfillment.set(column.share, coefficients.longTimeCoefficientOf(index) * shareFactor);
+            }
+        }
+    }
+
+    /**
+     * The variables of one order.
+     */
+    private static final class Column {
+        private final OrderOptimizer.Order order;
+        private final Variable enabled;
+        /**
+         * The new count, or the longtime share of the {@link OrderOptimizer.Formulation#BIG_M} formulation.
+         */
+        private final Variable share;
+        private final List<Variable> variables;
+        private final BigDecimal[] lowerLimits;
+        private final BigDecimal[] upperLimits;
+
+        Column(OrderOptimizer.Order order, Variable enabled, Variable share, List<Variable> variables) {
+            this.order = order;
+            this.enabled = enabled;
+            this.share = share;
+            this.variables = variables;
+            this.lowerLimits = new BigDecimal[variables.size()];
+            this.upperLimits = new BigDecimal[variables.size()];
+            for (int position = 0; position < variables.size(); position++) {
+                lowerLimits[position] = variables.get(position).getLowerLimit();
+                upperLimits[position] = variables.get(position).getUpperLimit();
+            }
+        }
+
+        /**
+         * @return true if the variable is a constant of the formulation
+         */
+        boolean isFixed(int position) {
+            return lowerLimits[position] != null && upperLimits[position] != null
+                    && lowerLimits[position].compareTo(upperLimits[position]) == 0;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency/quality profile of a solve: the objective weights and the limits of the MIP. A profile is chosen per call,
+ * see {@link OrderOptimizer#allocate(OrderOptimizer.BlisterData, OptimizerConfig)}.
+ * <p>
+ * The fulfillment weight of the youngest orders is 1/64 of {@link #getFulfillmentWeight()}, about 156 with the default
+ * weights. A MIP gap below that share of the objective only trades the new/old split, a larger one may also leave
+ * young orders unfulfilled.
+ */
+public final class OptimizerConfig {
+
+    /**
+     * Value of {@link #getIterationLimit()} and {@link #getTimeLimitMillis()} of a profile without limit.
+     */
+    public static final long NO_LIMIT = Long.MAX_VALUE;
+
+    public static final BigDecimal DEFAULT_FULFILLMENT_WEIGHT = BigDecimal.valueOf(10_000);
+    public static final BigDecimal DEFAULT_SHORTTIME_WEIGHT = BigDecimal.ONE;
+    public static final BigDecimal DEFAULT_LONGTIME_WEIGHT = BigDecimal.ONE;
+
+    /**
+     * Proves optimality without any limit, the default of {@link OrderOptimizer}.
+     */
+    public static final OptimizerConfig EXACT = new OptimizerConfig("exact", 0.0d, NO_LIMIT, NO_LIMIT,
+            TimeUnit.MILLISECONDS, DEFAULT_FULFILLMENT_WEIGHT, DEFAULT_SHORTTIME_WEIGHT, DEFAULT_LONGTIME_WEIGHT);
+    /**
+     * Answers within a second for user-facing requests, with a gap that only trades the new/old split.
+     */
+    public static final OptimizerConfig INTERACTIVE = new OptimizerConfig("interactive", 1e-3, 20_000, 1,
+            TimeUnit.SECONDS, DEFAULT_FULFILLMENT_WEIGHT, DEFAULT_SHORTTIME_WEIGHT, DEFAULT_LONGTIME_WEIGHT);
+    /**
+     * Nightly runs over many batches, which trade a gap of half a percent for a large speedup.
+     */
+    public static final OptimizerConfig BULK = new OptimizerConfig("bulk", 5e-3, NO_LIMIT, 30, TimeUnit.SECONDS,
+            DEFAULT_FULFILLMENT_WEIGHT, DEFAULT_SHORTTIME_WEIGHT, DEFAULT_LONGTIME_WEIGHT);
+
+    private final String name;
+    private final double mipGap;
+    private final long iterationLimit;
+    private final long timeLimitMillis;
+    private final BigDecimal fulfillmentWeight;
+    private final BigDecimal shortTimeWeight;
+    private final BigDecimal longTimeWeight;
+
+    /**
+     * @param mipGap relative gap at which the branch-and-bound stops, 0 to prove optimality; an allocation within the
+     * gap is reported {@link Allocation.Status#OPTIMAL}
+     * @param iterationLimit branch-and-bound iterations after which the best allocation so far is returned,
+     * {@link #NO_LIMIT} for none
+     * @param timeLimit time per batch after which the best allocation so far is returned, {@link #NO_LIMIT} for none
+     * @param fulfillmentWeight weight of fulfilling the orders
+     * @param shortTimeWeight weight of the new/old split of orders with longtime value
+     * @param longTimeWeight weight of the new/old split of orders without longtime value
+     */
+    public OptimizerConfig(String name, double mipGap, long iterationLimit, long timeLimit, TimeUnit unit,
+            BigDecimal fulfillmentWeight, BigDecimal shortTimeWeight, BigDecimal longTimeWeight) {
+        if (mipGap < 0.0d) {
+            throw new IllegalArgumentException("MIP gap must not be negative: " + mipGap);
+        }
+        if (iterationLimit <= 0 || timeLimit <= 0) {
+            throw new IllegalArgumentException("Limits must be positive: " + iterationLimit + " iterations, "
+                    + timeLimit + " " + unit);
+        }
+        this.name = Objects.requireNonNull(name);
+        this.mipGap = mipGap;
+        this.iterationLimit = iterationLimit;
+        this.timeLimitMillis = timeLimit == NO_LIMIT ? NO_LIMIT : unit.toMillis(timeLimit);
+        this.fulfillmentWeight = Objects.requireNonNull(fulfillmentWeight);
+        this.shortTimeWeight = Objects.requireNonNull(shortTimeWeight);
+        this.longTimeWeight = Objects.requireNonNull(longTimeWeight);
+    }
+
+    /**
+     * @param name name of one of the predefined profiles, case-insensitive
+     * @throws IllegalArgumentException if there is no such profile
+     */
+    public static OptimizerConfig named(String name) {
+        for (OptimizerConfig config : new OptimizerConfig[]{EXACT, INTERACTIVE, BULK}) {
+            if (config.name.equalsIgnoreCase(name)) {
+                return config;
+            }
+        }
+        throw new IllegalArgumentException("No optimizer profile named " + name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getMipGap() {
+        return mipGap;
+    }
+
+    public long getIterationLimit() {
+        return iterationLimit;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public BigDecimal getFulfillmentWeight() {
+        return fulfillmentWeight;
+    }
+
+    public BigDecimal getShortTimeWeight() {
+        return shortTimeWeight;
+    }
+
+    public BigDecimal getLongTimeWeight() {
+        return longTimeWeight;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
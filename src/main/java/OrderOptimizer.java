@@ -1,180 +1,441 @@
-import org.ojalgo.optimisation.Expression;
-import org.ojalgo.optimisation.ExpressionsBasedModel;
-import org.ojalgo.optimisation.Optimisation;
-import org.ojalgo.optimisation.Variable;
-
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class OrderOptimizer {
 
-    private static final BigDecimal BIG_INT = BigDecimal.valueOf(1_000_000);
-    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100.0d);
-    private static final BigDecimal FULFILLMENT_WEIGHT = BigDecimal.valueOf(10_000);
-    private static final BigDecimal SHORTTIME_WEIGHT = BigDecimal.ONE;
-    private static final BigDecimal LONGTIME_WEIGHT = BigDecimal.ONE;
-    private static final int DIVISION_SCALE = 10_000;
-    private static final int SCALE = DIVISION_SCALE;
+    private static final DynamicProgrammingSolver DYNAMIC_PROGRAMMING_SOLVER = new DynamicProgrammingSolver();
+    private static final LagrangianSolver LAGRANGIAN_SOLVER = new LagrangianSolver();
+
+    private final Executor batchExecutor;
+    private final OjAlgoBackend mipBackend = new OjAlgoBackend();
+    private RollingHorizonSolver rollingHorizonSolver = new RollingHorizonSolver(policyOf(Engine.DYNAMIC_PROGRAMMING),
+            RollingHorizonSolver.DEFAULT_WINDOW_SIZE, RollingHorizonSolver.DEFAULT_WINDOW_COUNT);
+    private SolverPolicy solverPolicy = policyOf(Engine.MIP);
+    private ResultCache resultCache;
+    private SolveListener solveListener;
+    private long timeLimitMillis = SolverBackend.NO_TIME_LIMIT;
+    private OptimizerConfig config = OptimizerConfig.EXACT;
+
+    public OrderOptimizer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param batchExecutor executor used by {@link #optimizeInParallel(Collection)} to solve independent batches
+     */
+    public OrderOptimizer(Executor batchExecutor) {
+        this.batchExecutor = Objects.requireNonNull(batchExecutor);
+    }
+
+    public void setEngine(Engine engine) {
+        this.solverPolicy = policyOf(Objects.requireNonNull(engine));
+    }
+
+    /**
+     * @param solverPolicy policy picking the backend per batch, replaces the one of the engine
+     */
+    public void setSolverPolicy(SolverPolicy solverPolicy) {
+        this.solverPolicy = Objects.requireNonNull(solverPolicy);
+    }
+
+    public void setFormulation(Formulation formulation) {
+        mipBackend.setFormulation(formulation);
+    }
+
+    /**
+     * @param warmStartEnabled true to seed the MIP with the date-ordered greedy allocation as first incumbent
+     */
+    public void setWarmStartEnabled(boolean warmStartEnabled) {
+        mipBackend.setWarmStartEnabled(warmStartEnabled);
+    }
+
+    /**
+     * @param lexicographic true to solve the MIP in two stages, first the fulfillment and then the new/old split,
+     * instead of the weighted objective
+     */
+    public void setLexicographic(boolean lexicographic) {
+        mipBackend.setLexicographic(lexicographic);
+    }
+
+    /**
+     * @param dominanceCutsEnabled true to add cuts to the MIP which enable an order before any later order it
+     * dominates, pruning symmetric branches
+     */
+    public void setDominanceCutsEnabled(boolean dominanceCutsEnabled) {
+        mipBackend.setDominanceCutsEnabled(dominanceCutsEnabled);
+    }
+
+    /**
+     * Sets the windows of {@link Engine#ROLLING_HORIZON}, by default {@link RollingHorizonSolver#DEFAULT_WINDOW_COUNT}
+     * windows of {@link RollingHorizonSolver#DEFAULT_WINDOW_SIZE} orders.
+     *
+     * @param windowSize orders per window, each window is solved exactly
+     * @param windowCount windows solved exactly, the orders after them are allocated greedily
+     */
+    public void setRollingHorizon(int windowSize, int windowCount) {
+        this.rollingHorizonSolver = new RollingHorizonSolver(policyOf(Engine.DYNAMIC_PROGRAMMING), windowSize,
+                windowCount);
+    }
+
+    /**
+     * @param resultCache cache for the allocations of already solved batches, null to always solve
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * @param validationEnabled true to validate every MIP solution against its model and print the validation and
+     * the solver result to standard out
+     */
+    public void setValidationEnabled(boolean validationEnabled) {
+        mipBackend.setValidationEnabled(validationEnabled);
+    }
+
+    /**
+     * @param solveListener listener for the metrics of every solved batch, null to collect none
+     */
+    public void setSolveListener(SolveListener solveListener) {
+        this.solveListener = solveListener;
+    }
+
+    /**
+     * Limits the time of every MIP solve. A solve which runs out of time returns the best allocation found so far,
+     * flagged {@link Allocation.Status#FEASIBLE} with its gap, instead of proving optimality.
+     *
+     * @param timeLimit time per batch, 0 or less to solve without limit
+     */
+    public void setTimeLimit(long timeLimit, TimeUnit unit) {
+        this.timeLimitMillis = timeLimit > 0 ? unit.toMillis(timeLimit) : SolverBackend.NO_TIME_LIMIT;
+    }
+
+    /**
+     * @param config profile of every solve which does not choose its own, {@link OptimizerConfig#EXACT} by default
+     */
+    public void setConfig(OptimizerConfig config) {
+        this.config = Objects.requireNonNull(config);
+    }
+
+    public OptimizerConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Opens a session which keeps the model of the batch alive, so orders can be added and removed and the batch
+     * re-optimized without building a new model. The session solves with the profile, time limit, solve listener and
+     * formulation set at this point, whatever the engine.
+     */
+    public OptimizationSession openSession(BlisterData blisterData) {
+        return new OptimizationSession(blisterData, config, mipBackend.getFormulation(), timeLimitMillis,
+                solveListener);
+    }
 
     public void optimize(Collection<BlisterData> data) {
         data.forEach(this::optimize);
     }
 
+    /**
+     * Solves the batch without assigning the allocation to its orders.
+     */
+    public Allocation allocate(BlisterData blisterData) {
+        return allocate(blisterData, timeLimitMillis);
+    }
+
+    /**
+     * Solves the batch within the given time without assigning the allocation to its orders, see
+     * {@link #setTimeLimit(long, TimeUnit)}.
+     */
+    public Allocation allocate(BlisterData blisterData, long timeLimit, TimeUnit unit) {
+        return allocate(blisterData, timeLimit > 0 ? unit.toMillis(timeLimit) : SolverBackend.NO_TIME_LIMIT);
+    }
+
+    /**
+     * Solves the batch with the given profile instead of the one of {@link #setConfig(OptimizerConfig)}. The time
+     * limit of the profile and the one of {@link #setTimeLimit(long, TimeUnit)}, whichever is shorter, applies.
+     */
+    public Allocation allocate(BlisterData blisterData, OptimizerConfig config) {
+        return allocate(blisterData, config, timeLimitMillis, new SolveCancellation());
+    }
+
+    /**
+     * Solves a batch given in columns, see {@link Allocation#getRow(int)} for the row of each order in the result.
+     */
+    public Allocation allocate(ColumnarBlisterData blisterData) {
+        return allocate(BlisterProblem.of(blisterData, config), timeLimitMillis);
+    }
+
+    /**
+     * Solves a batch given in columns within the given time, see {@link #setTimeLimit(long, TimeUnit)}.
+     */
+    public Allocation allocate(ColumnarBlisterData blisterData, long timeLimit, TimeUnit unit) {
+        return allocate(BlisterProblem.of(blisterData, config),
+                timeLimit > 0 ? unit.toMillis(timeLimit) : SolverBackend.NO_TIME_LIMIT);
+    }
+
+    /**
+     * Solves a batch given in columns with the given profile, see {@link #allocate(BlisterData, OptimizerConfig)}.
+     */
+    public Allocation allocate(ColumnarBlisterData blisterData, OptimizerConfig config) {
+        return allocate(BlisterProblem.of(blisterData, config), timeLimitMillis);
+    }
+
+    private Allocation allocate(BlisterData blisterData, long timeLimitMillis) {
+        return allocate(blisterData, config, timeLimitMillis, new SolveCancellation());
+    }
+
+    /**
+     * @return the allocation bound to the orders of the batch
+     */
+    private Allocation allocate(BlisterData blisterData, OptimizerConfig config, long timeLimitMillis,
+            SolveCancellation cancellation) {
+        List<Order> sortedByDate = BlisterProblem.sortedByDate(blisterData.getOrders());
+        BlisterProblem problem = BlisterProblem.of(blisterData.getNewAmount(), blisterData.getOldAmount(),
+                sortedByDate, config);
+        return allocate(problem, timeLimitMillis, cancellation).withOrders(sortedByDate);
+    }
+
+    private Allocation allocate(BlisterProblem problem, long timeLimitMillis) {
+        return allocate(problem, timeLimitMillis, new SolveCancellation());
+    }
+
+    /**
+     * @param timeLimitMillis time limit of the call, shortened to the one of the profile of the problem
+     */
+    private Allocation allocate(BlisterProblem problem, long timeLimitMillis, SolveCancellation cancellation) {
+        long limit = Math.min(timeLimitMillis, problem.getConfig().getTimeLimitMillis());
+        SolverBackend backend = solverPolicy.select(problem);
+        return resultCache != null
+                ? resultCache.get(problem, backend.getSettings(problem),
+                        () -> backend.solve(problem, limit, solveListener, cancellation))
+                : backend.solve(problem, limit, solveListener, cancellation);
+    }
+
+    /**
+     * Solves the batch on the batch executor. The allocation is not assigned to the orders of the batch: the future
+     * may be cancelled at any time, and the orders must not change once it is. Cancelling the returned future, not one
+     * derived from it, aborts the running solve, so that its model can be collected; a solve which has not started
+     * yet is skipped.
+     */
+    public CompletableFuture<Allocation> optimizeAsync(BlisterData blisterData) {
+        SolveCancellation cancellation = new SolveCancellation();
+        CompletableFuture<Allocation> future = new CompletableFuture<>();
+        future.whenComplete((allocation, failure) -> {
+            if (failure instanceof CancellationException) {
+                cancellation.cancel();
+            }
+        });
+        batchExecutor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                Allocation allocation = allocate(blisterData, config, timeLimitMillis, cancellation);
+                future.complete(allocation);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Solves every batch on the batch executor. A failing batch does not abort the others; its cause is returned
+     * instead of being thrown.
+     *
+     * @return the batches which could not be optimized, empty if all succeeded
+     */
+    public List<BatchFailure> optimizeInParallel(Collection<BlisterData> data) {
+        List<CompletableFuture<BatchFailure>> futures = new ArrayList<>(data.size());
+        for (BlisterData blisterData : data) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                BatchResult result = optimizeIsolated(blisterData);
+                return result.isSuccessful() ? null : new BatchFailure(blisterData, result.getFailure());
+            }, batchExecutor));
+        }
+
+        List<BatchFailure> failures = new ArrayList<>();
+        for (CompletableFuture<BatchFailure> future : futures) {
+            BatchFailure failure = future.join();
+            if (failure != null) {
+                failures.add(failure);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Optimizes the batches on the batch executor while the returned stream is consumed. At most {@code maxInFlight}
+     * batches are taken from the source ahead of the consumer, so the memory used does not depend on the number of
+     * batches. Results are emitted in the order the batches complete; a failing batch is emitted with its cause.
+     */
+    public Stream<BatchResult> optimizeStreaming(Iterator<BlisterData> batches, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        Iterator<BatchResult> results = new StreamingIterator(batches, maxInFlight);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results,
+                Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    private BatchResult optimizeIsolated(BlisterData blisterData) {
+        try {
+            Allocation allocation = allocate(blisterData);
+            allocation.assignOrders();
+            return new BatchResult(blisterData, allocation, null);
+        } catch (RuntimeException e) {
+            return new BatchResult(blisterData, null, e);
+        }
+    }
+
     private void optimize(BlisterData blisterData) {
-        Optimisation.Options options = new Optimisation.Options();
-        options.mip_gap = 0;
-        final ExpressionsBasedModel model = new ExpressionsBasedModel(options);
-
-        // Object function
-        Expression orderFulfillment = model.addExpression("object_enabled")
-                .weight(FULFILLMENT_WEIGHT);
-        Expression shortTimeFulfillment = model.addExpression("object_shortTime")
-                .weight(SHORTTIME_WEIGHT);
-        Expression longTimeFulfillment = model.addExpression("object_longTime")
-                .weight(LONGTIME_WEIGHT);
-
-        Variable constantBigInt = Variable.make("constant_big_int").integer(true).level(BIG_INT);
-        model.addVariable(constantBigInt);
-        /*Variable constantBigInt = model.addVariable("constant_big_int")
-                .integer(true)
-                .level(BIG_INT);*/
-
-        // n_1 + ,..., + n_n <= N
-        Expression allNewBlisterAreLowerOrEqualsMaximum = model.addExpression("newBlistersMaximum")
-                .upper(BigDecimal.valueOf(blisterData.newAmount));
-        // a_1 + ,..., + a_n <= A
-        Expression allOldBlisterAreLowerOrEqualsMaximum = model.addExpression("oldBlistersMaximum")
-                .upper(BigDecimal.valueOf(blisterData.oldAmount));
-        int index = 0;
-
-        List<Order> sortedByDate = new ArrayList<>(blisterData.orders);
-        sortedByDate.sort(Comparator.comparing(Order::getOrderingDate));
-
-        for (Order order : sortedByDate) {
-            /*Variable enabled = model.addVariable("enabled_" + index)
-                    .binary();*/
-            Variable enabled = Variable.makeBinary("enabled_" + index);
-            model.addVariable(enabled);
-
-            /*Variable longtime = model.addVariable("longtime_" + index)
-                    .lower(0);*/
-            Variable longtime = Variable.make("longtime_" + index)
-                    .lower(0);
-            model.addVariable(longtime);
-
-            BigDecimal longTimeWeight;
-            BigDecimal shortTimeWeight;
-            BigDecimal lowerBound;
-            if (order.getLongtimeValue() != null) {
-                lowerBound = BigDecimal.valueOf(order.getLongtimeValue())
-                        .divide(HUNDRED, DIVISION_SCALE, RoundingMode.HALF_UP)
-                        .setScale(SCALE, RoundingMode.UNNECESSARY);
-                longTimeWeight = BigDecimal.ZERO
-                        .setScale(SCALE, RoundingMode.UNNECESSARY);
-                shortTimeWeight = BigDecimal.ONE
-                        .setScale(SCALE, RoundingMode.UNNECESSARY);
-            } else {
-                lowerBound = BigDecimal.ZERO
-                        .setScale(SCALE, RoundingMode.UNNECESSARY);
-                longTimeWeight = BigDecimal.ONE
-                        .setScale(SCALE, RoundingMode.UNNECESSARY);
-                shortTimeWeight = BigDecimal.ZERO
-                        .setScale(SCALE, RoundingMode.UNNECESSARY);
+        allocate(blisterData).assignOrders();
+    }
+
+    private SolverPolicy policyOf(Engine engine) {
+        switch (engine) {
+            case DYNAMIC_PROGRAMMING:
+                return problem -> DYNAMIC_PROGRAMMING_SOLVER.supports(problem) ? DYNAMIC_PROGRAMMING_SOLVER
+                        : mipBackend;
+            case LAGRANGIAN:
+                return problem -> LAGRANGIAN_SOLVER;
+            case ROLLING_HORIZON:
+                return problem -> rollingHorizonSolver;
+            case AUTOMATIC:
+                return new SizeBasedSolverPolicy(DYNAMIC_PROGRAMMING_SOLVER, mipBackend, LAGRANGIAN_SOLVER,
+                        SizeBasedSolverPolicy.DEFAULT_MAX_MIP_ORDERS);
+            default:
+                return problem -> mipBackend;
+        }
+    }
+
+    /**
+     * Solver used for a batch. {@link #DYNAMIC_PROGRAMMING} solves the allocation directly on the capacities and
+     * falls back to {@link #MIP} if they are too large for its decision table. {@link #LAGRANGIAN} relaxes the
+     * capacities and solves every order on its own, which scales to thousands of orders but is only near-optimal; its
+     * allocations report their gap. {@link #AUTOMATIC} picks one of them per batch, see
+     * {@link SizeBasedSolverPolicy}. {@link #ROLLING_HORIZON} solves only the oldest orders exactly, in windows
+     * solved like {@link #DYNAMIC_PROGRAMMING}, and allocates the rest greedily, see {@link RollingHorizonSolver}.
+     */
+    public enum Engine {
+        MIP,
+        DYNAMIC_PROGRAMMING,
+        LAGRANGIAN,
+        AUTOMATIC,
+        ROLLING_HORIZON
+    }
+
+    /**
+     * MIP formulation used by {@link Engine#MIP}. {@link #BIG_M} models the share of new blisters as fraction and
+     * binds the old blisters with big-M constraints. {@link #BOUNDED_NEW_COUNT} uses an integer count of new blisters
+     * bounded by the enabled variable, which needs neither big-M nor constant variables.
+     * {@link #EQUIVALENCE_CLASSES} is {@link #BOUNDED_NEW_COUNT} with interchangeable orders aggregated into one
+     * integer count per class, so the branch-and-bound does not explore their permutations.
+     */
+    public enum Formulation {
+        BIG_M,
+        BOUNDED_NEW_COUNT,
+        EQUIVALENCE_CLASSES
+    }
+
+    private final class StreamingIterator implements Iterator<BatchResult> {
+        private final Iterator<BlisterData> batches;
+        private final int maxInFlight;
+        private final CompletionService<BatchResult> completionService;
+        private int inFlight;
+
+        StreamingIterator(Iterator<BlisterData> batches, int maxInFlight) {
+            this.batches = batches;
+            this.maxInFlight = maxInFlight;
+            this.completionService = new ExecutorCompletionService<>(batchExecutor);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (inFlight < maxInFlight && batches.hasNext()) {
+                BlisterData blisterData = batches.next();
+                completionService.submit(() -> optimizeIsolated(blisterData));
+                inFlight++;
+            }
+            return inFlight > 0;
+        }
+
+        @Override
+        public BatchResult next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                BatchResult result = completionService.take().get();
+                inFlight--;
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a batch", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Batch optimization failed", e.getCause());
             }
+        }
+    }
+
+    public static class BatchResult {
+        private final BlisterData blisterData;
+        private final Allocation allocation;
+        private final RuntimeException failure;
+
+        BatchResult(BlisterData blisterData, Allocation allocation, RuntimeException failure) {
+            this.blisterData = blisterData;
+            this.allocation = allocation;
+            this.failure = failure;
+        }
+
+        public BlisterData getBlisterData() {
+            return blisterData;
+        }
+
+        /**
+         * @return the allocation of the batch, null if it failed
+         */
+        public Allocation getAllocation() {
+            return allocation;
+        }
+
+        public boolean isSuccessful() {
+            return failure == null;
+        }
+
+        /**
+         * @return the cause of the failure, null if the batch was optimized
+         */
+        public RuntimeException getFailure() {
+            return failure;
+        }
+    }
+
+    public static class BatchFailure {
+        private final BlisterData blisterData;
+        private final RuntimeException cause;
+
+        BatchFailure(BlisterData blisterData, RuntimeException cause) {
+            this.blisterData = blisterData;
+            this.cause = cause;
+        }
+
+        public BlisterData getBlisterData() {
+            return blisterData;
+        }
 
-            order.setLongtime(longtime);
-            order.setEnabled(enabled);
-
-            // enabled = 1 -> minimum <= longtime <= 1
-            bindLongtimeToEnabled(model, index, enabled, longtime, lowerBound);
-
-            /*Variable oldDeduction = model.addVariable("oldDeduction_" + index)
-                    .integer(true)
-                    .lower(BigDecimal.ZERO);*/
-
-            Variable oldDeduction = Variable.make("oldDeduction_" + index)
-                    .integer(true)
-                    .lower(BigDecimal.ZERO);
-            model.addVariable(oldDeduction);
-            // oldDeduction = enabled * oldValue
-            bindOldDeductionToEnabledAndOldValue(model, index, enabled, oldDeduction, longtime, constantBigInt,
-                    order.requestedAmount);
-
-            allNewBlisterAreLowerOrEqualsMaximum
-                    .set(longtime, BigDecimal.valueOf(order.requestedAmount));
-            allOldBlisterAreLowerOrEqualsMaximum
-                    .set(oldDeduction, BigDecimal.ONE);
-
-            // Update Object-function
-            int divider = (index + 1);
-            int reversedDivider = sortedByDate.size() + 1 - divider;
-            orderFulfillment
-                    .set(enabled, getWeightOf(index));
-            shortTimeFulfillment
-                    .set(longtime, shortTimeWeight
-                            .divide(BigDecimal.valueOf(reversedDivider), DIVISION_SCALE, RoundingMode.HALF_UP)
-                            .multiply(BigDecimal.valueOf(-divider)));
-            longTimeFulfillment
-                    .set(longtime, longTimeWeight
-                            .divide(BigDecimal.valueOf(divider), DIVISION_SCALE, RoundingMode.HALF_UP)
-                            .multiply(BigDecimal.valueOf(reversedDivider)));
-            index++;
-        }
-
-        Optimisation.Result result = model.maximise();
-        System.out.println(model.validate(result));
-        System.out.println(result);
-        if (result.getState().isFailure()) {
-            throw new IllegalStateException("Optimized data wrong: " + result);
-        }
-    }
-
-    private void bindLongtimeToEnabled(ExpressionsBasedModel model, int index, Variable enabled, Variable longtime,
-            BigDecimal lowerBound) {
-        model.addExpression("enabled_longtime_" + index)
-                .set(longtime, BigDecimal.ONE)
-                .set(enabled, BigDecimal.valueOf(-1))
-                .lower(lowerBound.subtract(BigDecimal.ONE))
-                .upper(BigDecimal.ZERO);
-    }
-
-    private void bindOldDeductionToEnabledAndOldValue(ExpressionsBasedModel model, int index, Variable enabled,
-            Variable oldDeduction, Variable longtime, Variable constantBigInt, int requestedAmount) {
-       /* Variable constantReqAmount = model.addVariable("constant_req_int_" + index)
-                .integer(true)
-                .level(BigDecimal.valueOf(requestedAmount));*/
-        Variable constantReqAmount = Variable.make("constant_req_int_" + index)
-                .integer(true)
-                .level(BigDecimal.valueOf(requestedAmount));
-        model.addVariable(constantReqAmount);
-
-        model.addExpression("oldDeduction_2_" + index)
-                .set(oldDeduction, BigDecimal.valueOf(-1))
-                .set(enabled, BIG_INT)
-                .lower(BigDecimal.ZERO);
-        model.addExpression("oldDeduction_3_" + index)
-                .set(oldDeduction, BigDecimal.valueOf(-1))
-                .set(constantReqAmount, BigDecimal.ONE)
-                .set(longtime, BigDecimal.valueOf(-requestedAmount))
-                .lower(BigDecimal.ZERO);
-        model.addExpression("oldDeduction_4_" + index)
-                .set(oldDeduction, BigDecimal.valueOf(-1))
-                .set(constantReqAmount, BigDecimal.ONE)
-                .set(longtime, BigDecimal.valueOf(-requestedAmount))
-                .set(constantBigInt, BigDecimal.valueOf(-1))
-                .set(enabled, BIG_INT)
-                .upper(BigDecimal.ZERO);
-    }
-
-    private BigDecimal getWeightOf(int input) {
-        int x = input > 6 ? 6 : input;
-        BigDecimal pow = BigDecimal.valueOf(2)
-                .setScale(SCALE, RoundingMode.UNNECESSARY)
-                .pow(x);
-        BigDecimal one = BigDecimal.ONE
-                .setScale(SCALE, RoundingMode.UNNECESSARY);
-        return one.divide(pow, DIVISION_SCALE, RoundingMode.HALF_UP);
+        public RuntimeException getCause() {
+            return cause;
+        }
     }
 
     public static class BlisterData {
@@ -228,8 +489,8 @@ public class OrderOptimizer {
         private final Long depotId;
         private final Long shippingParameterId;
 
-        private Variable longtime;
-        private Variable enabled;
+        private boolean enabled;
+        private int newAmount;
 
         public Order(Long id, Double requestedAmount, Date orderingDate, Long longtime, Long customerAddressId,
                 Long depotId, Long shippingParameterId) {
@@ -254,14 +515,25 @@ public class OrderOptimizer {
             return customerAddressId;
         }
 
+        public int getRequestedAmount() {
+            return requestedAmount;
+        }
+
         public boolean isEnabled() {
-            return enabled.getValue().intValue() == 1;
+            return enabled;
         }
 
+        /**
+         * @return the new blisters of the order, 0 if it is not fulfilled
+         */
         public int getNewAmount() {
-            return (int) Math.round(requestedAmount * longtime.getValue().doubleValue());
+            return newAmount;
         }
 
+        /**
+         * @return the requested blisters which are not new, the whole requested amount if the order is not fulfilled;
+         * unlike {@link Allocation#getOldAmount(int)}, which is 0 for such an order
+         */
         public int getOldAmount() {
             return requestedAmount - getNewAmount();
         }
@@ -278,12 +550,9 @@ public class OrderOptimizer {
             return shippingParameterId;
         }
 
-        void setLongtime(Variable longtime) {
-            this.longtime = longtime;
-        }
-
-        void setEnabled(Variable enabled) {
+        void assign(boolean enabled, int newAmount) {
             this.enabled = enabled;
+            this.newAmount = newAmount;
         }
 
         @Override
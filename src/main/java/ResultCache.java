@@ -0,0 +1,122 @@
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache for the allocations of solved batches. Batches are keyed by their canonical form: the settings of the
+ * backend which solves them, the weights and the MIP gap of their {@link OptimizerConfig}, the capacities and, for
+ * every order sorted by date, the rank of its date, its requested amount and its minimum new amount. Batches which only
+ * differ in absolute dates therefore share their allocation, while optimizers with other engines, formulations or
+ * objectives may share the cache without seeing each other's allocations.
+ */
+public final class ResultCache {
+
+    private final Cache<Fingerprint, Allocation> allocations;
+
+    /**
+     * @param maximumSize number of batches kept, the least recently used ones are evicted first
+     * @param expireAfterWrite time after which a stored allocation is solved again
+     */
+    public ResultCache(long maximumSize, long expireAfterWrite, TimeUnit unit) {
+        this.allocations = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite, unit)
+                .recordStats()
+                .build();
+    }
+
+    public long getHitCount() {
+        return allocations.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return allocations.stats().missCount();
+    }
+
+    public long size() {
+        return allocations.size();
+    }
+
+    public void invalidateAll() {
+        allocations.invalidateAll();
+    }
+
+    /**
+     * Only optimal allocations are stored, one which ran out of time is solved again for the next equal batch.
+     *
+     * @param settings settings of the backend, see {@link SolverBackend#getSettings(BlisterProblem)}
+     * @return the stored allocation of an equal batch or the one computed by the solver, bound to the rows of the given
+     * batch
+     */
+    Allocation get(BlisterProblem problem, String settings, Supplier<Allocation> solver) {
+        Fingerprint fingerprint = Fingerprint.of(problem, settings);
+        Allocation allocation = allocations.getIfPresent(fingerprint);
+        if (allocation != null) {
+            return allocation.withRowsOf(problem);
+        }
+        allocation = solver.get();
+        if (allocation.getStatus() == Allocation.Status.OPTIMAL) {
+            allocations.put(fingerprint, allocation);
+        }
+        return allocation;
+    }
+
+    /**
+     * Canonical form of a batch, which is copied out of the orders, so it does not change with them.
+     */
+    static final class Fingerprint {
+        private static final int HEADER_LENGTH = 6;
+
+        private final String settings;
+        private final long[] values;
+        private final int hashCode;
+
+        private Fingerprint(String settings, long[] values) {
+            this.settings = settings;
+            this.values = values;
+            this.hashCode = 31 * settings.hashCode() + Arrays.hashCode(values);
+        }
+
+        static Fingerprint of(BlisterProblem problem, String settings) {
+            OptimizerConfig config = problem.getConfig();
+            long[] values = new long[HEADER_LENGTH + problem.size() * 4];
+            values[0] = problem.getNewCapacity();
+            values[1] = problem.getOldCapacity();
+            values[2] = Double.doubleToLongBits(config.getFulfillmentWeight().doubleValue());
+            values[3] = Double.doubleToLongBits(config.getShortTimeWeight().doubleValue());
+            values[4] = Double.doubleToLongBits(config.getLongTimeWeight().doubleValue());
+            values[5] = Double.doubleToLongBits(config.getMipGap());
+            int rank = 0;
+            for (int index = 0; index < problem.size(); index++) {
+                if (index > 0 && problem.getOrderingDate(index) != problem.getOrderingDate(index - 1)) {
+                    rank++;
+                }
+                int offset = HEADER_LENGTH + index * 4;
+                values[offset] = rank;
+                values[offset + 1] = problem.getRequestedAmount(index);
+                values[offset + 2] = problem.getMinimumNewAmount(index);
+                values[offset + 3] = problem.isLongtimeValueSet(index) ? 1 : 0;
+            }
+            return new Fingerprint(settings, values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Fingerprint)) {
+                return false;
+            }
+
+            Fingerprint other = (Fingerprint) obj;
+
+            return hashCode == other.hashCode && settings.equals(other.settings) && Arrays.equals(values, other.values);
+        }
+    }
+}
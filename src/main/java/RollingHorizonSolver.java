@@ -0,0 +1,164 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Solver for long order backlogs. The fulfillment weights and the split coefficients fall with the position of an
+ * order, so the oldest orders decide almost all of the objective. The oldest orders are therefore solved exactly in
+ * windows of a fixed size: every window is solved by the window backend on the capacities left by the previous ones,
+ * its allocation is committed and the window moves on. The orders beyond the last window are allocated greedily, so
+ * the solve time is bounded by the number of windows regardless of the length of the backlog. Beyond the first orders
+ * all fulfillment weights are equal, so the greedy tail serves the orders with the highest gain per requested blister
+ * first, which fulfills more of them than serving by date.
+ * <p>
+ * The allocation is feasible but not proven optimal, unless the whole batch fits into the first window.
+ */
+public final class RollingHorizonSolver implements SolverBackend {
+
+    static final String NAME = "rolling-horizon";
+
+    public static final int DEFAULT_WINDOW_SIZE = 12;
+    public static final int DEFAULT_WINDOW_COUNT = 10;
+
+    private final SolverPolicy windowPolicy;
+    private final int windowSize;
+    private final int windowCount;
+
+    /**
+     * @param windowPolicy policy picking the backend of every window
+     * @param windowSize orders per window
+     * @param windowCount windows solved exactly, the orders after them are allocated greedily
+     */
+    public RollingHorizonSolver(SolverPolicy windowPolicy, int windowSize, int windowCount) {
+        if (windowSize <= 0 || windowCount <= 0) {
+            throw new IllegalArgumentException("Window size and count must be positive: " + windowSize + ", "
+                    + windowCount);
+        }
+        this.windowPolicy = Objects.requireNonNull(windowPolicy);
+        this.windowSize = windowSize;
+        this.windowCount = windowCount;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getSettings(BlisterProblem problem) {
+        if (problem.size() <= windowSize) {
+            return windowPolicy.select(problem).getSettings(problem);
+        }
+        return NAME + " " + windowCount + "x" + windowSize;
+    }
+
+    @Override
+    public boolean supports(BlisterProblem problem) {
+        return true;
+    }
+
+    @Override
+    public Allocation solve(BlisterProblem problem, long timeLimitMillis, SolveListener listener) {
+        return solve(problem, timeLimitMillis, listener, new SolveCancellation());
+    }
+
+    /**
+     * The time limit is shared by the windows, windows which are left without time are allocated greedily.
+     */
+    @Override
+    public Allocation solve(BlisterProblem problem, long timeLimitMillis, SolveListener listener,
+            SolveCancellation cancellation) {
+        if (problem.size() <= windowSize) {
+            return windowPolicy.select(problem).solve(problem, timeLimitMillis, listener, cancellation);
+        }
+
+        long start = System.nanoTime();
+        int[] newAmounts = new int[problem.size()];
+        Arrays.fill(newAmounts, BlisterProblem.DISABLED);
+        int remainingNew = problem.getNewCapacity();
+        int remainingOld = problem.getOldCapacity();
+        int from = 0;
+        for (int window = 0; window < windowCount && from < problem.size(); window++) {
+            long remainingMillis = remainingMillis(start, timeLimitMillis);
+            if (remainingMillis <= 0) {
+                break;
+            }
+            cancellation.checkNotCancelled();
+            int to = Math.min(from + windowSize, problem.size());
+            BlisterProblem windowProblem = problem.window(from, to, remainingNew, remainingOld);
+            Allocation allocation = windowPolicy.select(windowProblem).solve(windowProblem, remainingMillis,
+                    listener, cancellation);
+            for (int index = 0; index < allocation.size(); index++) {
+                if (allocation.isEnabled(index)) {
+                    newAmounts[from + index] = allocation.getNewAmount(index);
+                    remainingNew -= allocation.getNewAmount(index);
+                    remainingOld -= allocation.getOldAmount(index);
+                }
+            }
+            from = to;
+        }
+
+        if (from < problem.size()) {
+            BlisterProblem tail = problem.window(from, problem.size(), remainingNew, remainingOld);
+            int[] tailNewAmounts = GreedyAllocator.allocate(tail, byGainDensity(tail));
+            improveSplit(tail, tailNewAmounts);
+            System.arraycopy(tailNewAmounts, 0, newAmounts, from, tail.size());
+        }
+        return Allocation.of(problem, newAmounts, Allocation.Status.FEASIBLE);
+    }
+
+    /**
+     * Hands the blisters left by the greedy allocation to the fulfilled orders which gain from them, steepest slope
+     * first: spare new blisters replace old ones of orders with positive slope, spare old blisters replace new ones
+     * above the minimum of orders with negative slope.
+     */
+    private static void improveSplit(BlisterProblem problem, int[] newAmounts) {
+        long spareNew = problem.getNewCapacity();
+        long spareOld = problem.getOldCapacity();
+        for (int index = 0; index < problem.size(); index++) {
+            if (newAmounts[index] != BlisterProblem.DISABLED) {
+                spareNew -= newAmounts[index];
+                spareOld -= problem.getRequestedAmount(index) - newAmounts[index];
+            }
+        }
+        Integer[] bySlope = IntStream.range(0, problem.size())
+                .filter(index -> newAmounts[index] != BlisterProblem.DISABLED)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer index) -> -Math.abs(problem.slopeOf(index))))
+                .toArray(Integer[]::new);
+        for (int index : bySlope) {
+            if (problem.slopeOf(index) > 0) {
+                int added = (int) Math.min(problem.getRequestedAmount(index) - newAmounts[index], spareNew);
+                newAmounts[index] += added;
+                spareNew -= added;
+                spareOld += added;
+            } else if (problem.slopeOf(index) < 0) {
+                int removed = (int) Math.min(newAmounts[index] - problem.getMinimumNewAmount(index), spareOld);
+                newAmounts[index] -= removed;
+                spareOld -= removed;
+                spareNew += removed;
+            }
+        }
+    }
+
+    /**
+     * @return the order indices sorted by gain per requested blister, descending, orders of equal density by date
+     */
+    private static int[] byGainDensity(BlisterProblem problem) {
+        return IntStream.range(0, problem.size())
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer index) -> -problem.gainOf(index)
+                        / Math.max(problem.getRequestedAmount(index), 1)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static long remainingMillis(long start, long timeLimitMillis) {
+        if (timeLimitMillis == NO_TIME_LIMIT) {
+            return NO_TIME_LIMIT;
+        }
+        return timeLimitMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
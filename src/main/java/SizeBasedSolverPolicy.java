@@ -0,0 +1,38 @@
+import java.util.Objects;
+
+/**
+ * Picks the exact backend whenever it supports the batch, which depends on the capacities rather than on the number of
+ * orders. Otherwise small batches go to the MIP and larger ones to the decomposition, whose solve time grows about
+ * linearly with the number of orders.
+ */
+public final class SizeBasedSolverPolicy implements SolverPolicy {
+
+    /**
+     * Orders up to which the MIP solves a batch within a second.
+     */
+    public static final int DEFAULT_MAX_MIP_ORDERS = 20;
+
+    private final SolverBackend exact;
+    private final SolverBackend mip;
+    private final SolverBackend decomposition;
+    private final int maxMipOrders;
+
+    public SizeBasedSolverPolicy(SolverBackend exact, SolverBackend mip, SolverBackend decomposition,
+            int maxMipOrders) {
+        this.exact = Objects.requireNonNull(exact);
+        this.mip = Objects.requireNonNull(mip);
+        this.decomposition = Objects.requireNonNull(decomposition);
+        this.maxMipOrders = maxMipOrders;
+    }
+
+    @Override
+    public SolverBackend select(BlisterProblem problem) {
+        if (exact.supports(problem)) {
+            return exact;
+        }
+        if (problem.size() <= maxMipOrders && mip.supports(problem)) {
+            return mip;
+        }
+        return decomposition;
+    }
+}
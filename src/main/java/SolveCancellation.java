@@ -0,0 +1,45 @@
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cancels a running solve, see {@link OrderOptimizer#optimizeAsync(OrderOptimizer.BlisterData)}. While a backend
+ * solves, it registers how to stop its solver; cancelling runs it, immediately if the solve was cancelled before.
+ * Backends which solve in their own loops poll {@link #isCancelled()} instead, which does not lock.
+ */
+public final class SolveCancellation {
+
+    private volatile boolean cancelled;
+    private Runnable stopper;
+
+    public synchronized void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (stopper != null) {
+            stopper.run();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException if the solve was cancelled
+     */
+    public void checkNotCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Solve cancelled");
+        }
+    }
+
+    /**
+     * @param stopper stops the running solver, null once it returned so that its model can be collected
+     */
+    public synchronized void onCancel(Runnable stopper) {
+        this.stopper = stopper;
+        if (cancelled && stopper != null) {
+            stopper.run();
+        }
+    }
+}
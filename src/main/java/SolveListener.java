@@ -0,0 +1,10 @@
+/**
+ * Receives the metrics of every batch solved by an {@link OrderOptimizer}. Batches served from the
+ * {@link ResultCache} are not reported. The listener is called on the thread which solved the batch, so it has to be
+ * thread-safe if batches are optimized in parallel.
+ */
+@FunctionalInterface
+public interface SolveListener {
+
+    void solved(SolveMetrics metrics);
+}
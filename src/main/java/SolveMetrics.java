@@ -0,0 +1,90 @@
+import org.ojalgo.optimisation.Optimisation;
+
+/**
+ * Timings and size of the solve of one batch, see {@link SolveListener}.
+ */
+public final class SolveMetrics {
+
+    /**
+     * Value of {@link #getIterations()} if the solver does not report it.
+     */
+    public static final long UNKNOWN = -1L;
+
+    private final String backend;
+    private final int orderCount;
+    private final long buildNanos;
+    private final long solveNanos;
+    private final long extractNanos;
+    private final int variableCount;
+    private final int constraintCount;
+    private final long iterations;
+    private final Optimisation.State state;
+
+    public SolveMetrics(String backend, int orderCount, long buildNanos, long solveNanos, long extractNanos,
+            int variableCount, int constraintCount, long iterations, Optimisation.State state) {
+        this.backend = backend;
+        this.orderCount = orderCount;
+        this.buildNanos = buildNanos;
+        this.solveNanos = solveNanos;
+        this.extractNanos = extractNanos;
+        this.variableCount = variableCount;
+        this.constraintCount = constraintCount;
+        this.iterations = iterations;
+        this.state = state;
+    }
+
+    /**
+     * @return the name of the {@link SolverBackend} which solved the batch
+     */
+    public String getBackend() {
+        return backend;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * @return time spent building the model, 0 for the engines without model
+     */
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    public long getSolveNanos() {
+        return solveNanos;
+    }
+
+    /**
+     * @return time spent reading the allocation from the solution
+     */
+    public long getExtractNanos() {
+        return extractNanos;
+    }
+
+    /**
+     * @return the variables of the model, the number of orders for the dynamic programming and Lagrangian engines
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * @return the constraints of the model, the two capacities for the dynamic programming and Lagrangian engines
+     */
+    public int getConstraintCount() {
+        return constraintCount;
+    }
+
+    /**
+     * @return the cells of the decision table for the dynamic programming engine, the subgradient steps for the
+     * Lagrangian engine, the nodes of the branch-and-bound which reached a solver for the MIP
+     */
+    public long getIterations() {
+        return iterations;
+    }
+
+    public Optimisation.State getState() {
+        return state;
+    }
+}
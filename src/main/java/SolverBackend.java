@@ -0,0 +1,54 @@
+/**
+ * Engine solving the blister model of one batch: per order whether it is fulfilled and how many of its blisters are
+ * new, subject to the capacities of new and old blisters. The objective of every order is
+ * {@link BlisterProblem#gainOf(int)} if it is fulfilled plus {@link BlisterProblem#slopeOf(int)} per new blister.
+ * <p>
+ * Implementations have to be thread-safe, an optimizer solves independent batches in parallel. Like the rest of the
+ * optimizer this interface lives in the default package, so backends maintained elsewhere have to be compiled into the
+ * default package as well.
+ */
+public interface SolverBackend {
+
+    /**
+     * Time limit of a solve which may run until it is done.
+     */
+    long NO_TIME_LIMIT = Long.MAX_VALUE;
+
+    /**
+     * @return the name reported in the {@link SolveMetrics}
+     */
+    String getName();
+
+    /**
+     * @return the name of the backend and every setting which may change its allocation of the problem, the
+     * {@link ResultCache} only shares allocations of equal settings
+     */
+    default String getSettings(BlisterProblem problem) {
+        return getName();
+    }
+
+    /**
+     * @return false if the problem is beyond the limits of the backend, e.g. too large for its tables
+     */
+    boolean supports(BlisterProblem problem);
+
+    /**
+     * @param timeLimitMillis time after which the best allocation found so far is returned, {@link #NO_TIME_LIMIT}
+     * to solve to optimality; backends which always finish quickly may ignore it
+     * @param listener receiver of the metrics of the solve, may be null
+     */
+    Allocation solve(BlisterProblem problem, long timeLimitMillis, SolveListener listener);
+
+    /**
+     * Solves like {@link #solve(BlisterProblem, long, SolveListener)}, but stops as soon as the cancellation is
+     * cancelled: either by polling {@link SolveCancellation#checkNotCancelled()} or by registering how to stop the
+     * running solver with {@link SolveCancellation#onCancel(Runnable)}. Backends which always finish quickly may
+     * ignore it, which is the default.
+     *
+     * @throws java.util.concurrent.CancellationException if the solve was cancelled
+     */
+    default Allocation solve(BlisterProblem problem, long timeLimitMillis, SolveListener listener,
+            SolveCancellation cancellation) {
+        return solve(problem, timeLimitMillis, listener);
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Picks the {@link SolverBackend} for a batch.
+ */
+@FunctionalInterface
+public interface SolverPolicy {
+
+    SolverBackend select(BlisterProblem problem);
+}
@@ -0,0 +1,72 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Optimal objective of small batches by enumerating every set of fulfilled orders. For a fixed set the capacities only
+ * bound the total of new blisters, which is handed out along the slopes of the orders, so the enumeration is exact.
+ */
+final class ExhaustiveOracle {
+
+    static final int MAX_ORDERS = 16;
+
+    private ExhaustiveOracle() {
+    }
+
+    static double optimalObjective(BlisterProblem problem) {
+        int size = problem.size();
+        if (size > MAX_ORDERS) {
+            throw new IllegalArgumentException("Too many orders for the exhaustive oracle: " + size);
+        }
+        Integer[] bySlope = new Integer[size];
+        for (int index = 0; index < size; index++) {
+            bySlope[index] = index;
+        }
+        Arrays.sort(bySlope, Comparator.comparingDouble(problem::slopeOf).reversed());
+
+        double best = 0.0d;
+        for (int enabled = 1; enabled < 1 << size; enabled++) {
+            best = Math.max(best, objectiveOf(problem, enabled, bySlope));
+        }
+        return best;
+    }
+
+    /**
+     * @param enabled bit set of the fulfilled orders
+     * @return the best objective of the set, negative infinity if the capacities can not fulfill it
+     */
+    private static double objectiveOf(BlisterProblem problem, int enabled, Integer[] bySlope) {
+        long requested = 0;
+        long minimumNew = 0;
+        double objective = 0.0d;
+        for (int index = 0; index < problem.size(); index++) {
+            if ((enabled & 1 << index) == 0) {
+                continue;
+            }
+            if (problem.getMinimumNewAmount(index) > problem.getRequestedAmount(index)) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            requested += problem.getRequestedAmount(index);
+            minimumNew += problem.getMinimumNewAmount(index);
+            objective += problem.gainOf(index) + problem.slopeOf(index) * problem.getMinimumNewAmount(index);
+        }
+        long lowestNew = Math.max(minimumNew, requested - problem.getOldCapacity());
+        long highestNew = Math.min(requested, problem.getNewCapacity());
+        if (lowestNew > highestNew) {
+            return Double.NEGATIVE_INFINITY;
+        }
+
+        // New blisters above the minimums go to the steepest orders, beyond the lowest total only while they gain
+        long assigned = minimumNew;
+        for (int index : bySlope) {
+            if ((enabled & 1 << index) == 0) {
+                continue;
+            }
+            long limit = problem.slopeOf(index) > 0 ? highestNew : lowestNew;
+            long added = Math.min(problem.getRequestedAmount(index) - problem.getMinimumNewAmount(index),
+                    Math.max(limit - assigned, 0));
+            objective += problem.slopeOf(index) * added;
+            assigned += added;
+        }
+        return objective;
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Solves every {@link PerfInstance} and compares its median solve time, its solver iterations and its objective with
+ * the baselines stored in the repository. Allocations of the small instances are checked against
+ * {@link ExhaustiveOracle}. Exits with status 1 if an instance regressed.
+ * <p>
+ * Usage: {@code PerfGate <baselines file> <tolerance> [--record]}. The tolerance is the allowed relative increase of
+ * time and iterations; {@code --record} overwrites the baselines with the measured values instead of comparing.
+ */
+public final class PerfGate {
+
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 7;
+    /**
+     * Absolute slack of the solve time, below it a difference is noise.
+     */
+    private static final double TIME_SLACK_MILLIS = 5.0d;
+    private static final double OBJECTIVE_TOLERANCE = 1e-6;
+
+    private PerfGate() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: PerfGate <baselines file> <tolerance> [--record]");
+            System.exit(2);
+        }
+        Path baselinesFile = Paths.get(args[0]);
+        double tolerance = Double.parseDouble(args[1]);
+        boolean record = args.length > 2 && "--record".equals(args[2]);
+
+        Map<String, Double> measured = new TreeMap<>();
+        List<String> failures = new ArrayList<>();
+        for (PerfInstance instance : PerfInstance.values()) {
+            measure(instance, measured, failures);
+        }
+
+        if (record) {
+            writeBaselines(baselinesFile, measured);
+            System.out.println("Recorded " + measured.size() + " baselines to " + baselinesFile);
+        } else {
+            compare(readBaselines(baselinesFile), measured, tolerance, failures);
+        }
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.err.println("FAILED " + failure));
+            System.exit(1);
+        }
+    }
+
+    private static void measure(PerfInstance instance, Map<String, Double> measured, List<String> failures) {
+        OrderOptimizer.BlisterData data = instance.generate();
+        long[] solveNanos = new long[MEASURED_RUNS];
+        long[] iterations = new long[1];
+        Allocation allocation = null;
+        for (int run = -WARMUP_RUNS; run < MEASURED_RUNS; run++) {
+            OrderOptimizer optimizer = instance.newOptimizer();
+            optimizer.setSolveListener(metrics -> iterations[0] = metrics.getIterations());
+            long start = System.nanoTime();
+            allocation = optimizer.allocate(data);
+            if (run >= 0) {
+                solveNanos[run] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(solveNanos);
+        double solveMillis = solveNanos[MEASURED_RUNS / 2] / 1e6;
+
+        measured.put(instance.key() + ".solveMillis", solveMillis);
+        measured.put(instance.key() + ".objective", allocation.getObjective());
+        if (iterations[0] != SolveMetrics.UNKNOWN) {
+            measured.put(instance.key() + ".iterations", (double) iterations[0]);
+        }
+        System.out.println(String.format(Locale.ROOT, "%-32s %6d orders %10.2f ms  objective %.6f  gap %.2e",
+                instance.key(), instance.getOrderCount(), solveMillis, allocation.getObjective(),
+                allocation.getGap()));
+
+        if (instance.isExhaustive()) {
+            double optimal = ExhaustiveOracle.optimalObjective(BlisterProblem.of(data));
+            if (Math.abs(optimal - allocation.getObjective()) > OBJECTIVE_TOLERANCE * Math.max(1.0d, optimal)) {
+                failures.add(instance.key() + ": objective " + allocation.getObjective()
+                        + " differs from the exhaustive optimum " + optimal);
+            }
+        }
+    }
+
+    private static void compare(Map<String, Double> baselines, Map<String, Double> measured, double tolerance,
+            List<String> failures) {
+        for (Map.Entry<String, Double> entry : measured.entrySet()) {
+            String key = entry.getKey();
+            double value = entry.getValue();
+            Double baseline = baselines.get(key);
+            if (baseline == null) {
+                failures.add(key + ": no baseline, record one with -PperfRecord");
+            } else if (key.endsWith(".solveMillis") && value > baseline * (1 + tolerance) + TIME_SLACK_MILLIS) {
+                failures.add(String.format(Locale.ROOT, "%s: %.2f ms exceeds the baseline of %.2f ms", key, value,
+                        baseline));
+            } else if (key.endsWith(".iterations") && value > baseline * (1 + tolerance)) {
+                failures.add(String.format(Locale.ROOT, "%s: %.0f iterations exceed the baseline of %.0f", key,
+                        value, baseline));
+            } else if (key.endsWith(".objective")
+                    && value < baseline - OBJECTIVE_TOLERANCE * Math.max(1.0d, Math.abs(baseline))) {
+                failures.add(key + ": " + value + " is worse than the baseline of " + baseline);
+            }
+        }
+    }
+
+    private static Map<String, Double> readBaselines(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+            properties.load(reader);
+        }
+        Map<String, Double> baselines = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            baselines.put(key, Double.valueOf(properties.getProperty(key)));
+        }
+        return baselines;
+    }
+
+    private static void writeBaselines(Path file, Map<String, Double> baselines) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.ISO_8859_1)) {
+            writer.write("# Baselines of the performance gate, recorded with ./gradlew perfGate -PperfRecord\n");
+            writer.write("# " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version") + ", "
+                    + Runtime.getRuntime().availableProcessors() + " processors\n");
+            for (Map.Entry<String, Double> entry : baselines.entrySet()) {
+                writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeded batches of the performance gate. Every instance always generates the same batch and is solved with the same
+ * engine, so its solve time only changes with the code and the machine.
+ */
+enum PerfInstance {
+    SMALL_TIGHT(9, 0.5, OrderOptimizer.Engine.MIP),
+    SMALL_LOOSE(10, 1.2, OrderOptimizer.Engine.MIP),
+    SMALL_TIGHT_DYNAMIC_PROGRAMMING(12, 0.5, OrderOptimizer.Engine.DYNAMIC_PROGRAMMING),
+    MEDIUM_TIGHT(13, 0.6, OrderOptimizer.Engine.MIP),
+    MEDIUM_LOOSE(30, 1.5, OrderOptimizer.Engine.MIP),
+    LARGE_TIGHT(2000, 0.6, OrderOptimizer.Engine.LAGRANGIAN),
+    LARGE_LOOSE(2000, 1.5, OrderOptimizer.Engine.LAGRANGIAN),
+    LARGE_AUTOMATIC(5000, 0.8, OrderOptimizer.Engine.AUTOMATIC);
+
+    private static final double NULL_LONGTIME_SHARE = 0.5;
+    private static final int DATE_SPREAD_DAYS = 30;
+    /**
+     * Guards the gate against a change which makes the MIP of an instance run for hours.
+     */
+    private static final long TIME_LIMIT_SECONDS = 30;
+
+    private final int orderCount;
+    private final double capacityShare;
+    private final OrderOptimizer.Engine engine;
+
+    /**
+     * @param capacityShare new and old blisters available as share of the requested amount of all orders, below 1 not
+     * all orders can be fulfilled
+     */
+    PerfInstance(int orderCount, double capacityShare, OrderOptimizer.Engine engine) {
+        this.orderCount = orderCount;
+        this.capacityShare = capacityShare;
+        this.engine = engine;
+    }
+
+    String key() {
+        return name().toLowerCase();
+    }
+
+    int getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * @return true if the instance is small enough for {@link ExhaustiveOracle}
+     */
+    boolean isExhaustive() {
+        return orderCount <= ExhaustiveOracle.MAX_ORDERS;
+    }
+
+    OrderOptimizer newOptimizer() {
+        OrderOptimizer optimizer = new OrderOptimizer();
+        optimizer.setEngine(engine);
+        optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+        optimizer.setTimeLimit(TIME_LIMIT_SECONDS, TimeUnit.SECONDS);
+        return optimizer;
+    }
+
+    OrderOptimizer.BlisterData generate() {
+        return new BlisterDataGenerator(ordinal() * 31L + orderCount).generate(orderCount, capacityShare,
+                NULL_LONGTIME_SHARE, DATE_SPREAD_DAYS);
+    }
+}
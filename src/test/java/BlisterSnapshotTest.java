@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BlisterSnapshotTest {
+    private final LocalDate currentDate = LocalDate.now();
+    private final OrderOptimizer optimizer = new OrderOptimizer();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        optimizer.setEngine(OrderOptimizer.Engine.DYNAMIC_PROGRAMMING);
+    }
+
+    @Test
+    void readBatches_writtenBatches_getAllocationOfConstructorPath() throws IOException {
+        List<OrderOptimizer.Order> orders = Arrays.asList(
+                new OrderOptimizer.Order(null, 20.0d, toDate(currentDate), 60L, null, null, null),
+                new OrderOptimizer.Order(null, 10.0d, toDate(currentDate.plusDays(1)), null, null, null, null),
+                new OrderOptimizer.Order(null, 15.0d, toDate(currentDate.plusDays(1)), 10L, null, null, null),
+                new OrderOptimizer.Order(null, 30.0d, toDate(currentDate.plusDays(3)), 100L, null, null, null));
+        OrderOptimizer.BlisterData first = new OrderOptimizer.BlisterData(40, 20, orders);
+        OrderOptimizer.BlisterData second = new OrderOptimizer.BlisterData(10, 0, Collections.singleton(orders.get(1)));
+        Path file = directory.resolve("batches.bin");
+
+        // Act
+        BlisterSnapshot.writeBatches(file, Arrays.asList(ColumnarBlisterData.of(first),
+                ColumnarBlisterData.of(second)));
+        List<ColumnarBlisterData> batches = BlisterSnapshot.readBatches(file);
+
+        // Assert
+        assertEquals(2, batches.size());
+        assertEquals(ColumnarBlisterData.of(first), batches.get(0));
+        assertEquals(ColumnarBlisterData.of(second), batches.get(1));
+        Allocation expected = optimizer.allocate(first);
+        Allocation allocation = optimizer.allocate(batches.get(0));
+        assertEquals(expected.getObjective(), allocation.getObjective(), 1e-9);
+        for (int index = 0; index < allocation.size(); index++) {
+            assertEquals(expected.getOrder(index), orders.get(allocation.getRow(index)));
+            assertEquals(expected.getNewAmount(index), allocation.getNewAmount(index));
+            assertEquals(expected.getOldAmount(index), allocation.getOldAmount(index));
+        }
+    }
+
+    @Test
+    void readAllocations_writtenAllocations_getNewAmountsByRow() throws IOException {
+        ColumnarBlisterData batch = new ColumnarBlisterData(30, 10, new int[]{10, 20, 50},
+                new long[]{toDate(currentDate.plusDays(1)).getTime(), toDate(currentDate).getTime(),
+                        toDate(currentDate).getTime()},
+                new short[]{10, 60, 100});
+        Allocation allocation = optimizer.allocate(batch);
+        Path file = directory.resolve("allocations.bin");
+
+        // Act
+        BlisterSnapshot.writeAllocations(file, Collections.singletonList(allocation));
+        List<int[]> allocations = BlisterSnapshot.readAllocations(file);
+
+        // Assert
+        assertEquals(1, allocations.size());
+        int[] expected = new int[batch.size()];
+        for (int index = 0; index < allocation.size(); index++) {
+            expected[allocation.getRow(index)] = allocation.isEnabled(index) ? allocation.getNewAmount(index)
+                    : BlisterProblem.DISABLED;
+        }
+        assertArrayEquals(new int[]{1, 19, BlisterProblem.DISABLED}, expected);
+        assertArrayEquals(expected, allocations.get(0));
+    }
+
+    @Test
+    void readBatches_allocationFile_throwsIOException() throws IOException {
+        Path file = directory.resolve("allocations.bin");
+        BlisterSnapshot.writeAllocations(file, new ArrayList<>());
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> BlisterSnapshot.readBatches(file));
+        assertEquals(12, Files.size(file));
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay().atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
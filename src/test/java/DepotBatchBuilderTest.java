@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DepotBatchBuilderTest {
+    private final Date today = Date.from(LocalDate.now().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant());
+
+    @Test
+    void build_ordersOfTwoDepots_getOneBatchPerDepotWithItsStock() {
+        List<OrderOptimizer.Order> orders = new ArrayList<>();
+        for (long id = 0; id < 1000; id++) {
+            orders.add(new OrderOptimizer.Order(id, 10.0d, today, null, null, id % 2 == 0 ? 7L : 3L, null));
+        }
+        DepotBatchBuilder builder = new DepotBatchBuilder()
+                .addStock(3L, 100, 50)
+                .addStock(7L, 200, 0)
+                .addStock(9L, 10, 10);
+
+        // Act
+        Map<Long, OrderOptimizer.BlisterData> batches = builder.build(orders);
+
+        // Assert
+        assertEquals(Arrays.asList(3L, 7L), new ArrayList<>(batches.keySet()));
+        OrderOptimizer.BlisterData depotThree = batches.get(3L);
+        assertEquals(100, depotThree.getNewAmount());
+        assertEquals(50, depotThree.getOldAmount());
+        assertEquals(500, depotThree.getOrders().size());
+        assertTrue(depotThree.getOrders().stream().allMatch(order -> order.getDepotId() == 3L));
+        OrderOptimizer.BlisterData depotSeven = batches.get(7L);
+        assertEquals(200, depotSeven.getNewAmount());
+        assertEquals(500, depotSeven.getOrders().size());
+    }
+
+    @Test
+    void build_depotWithoutStock_throwsIllegalArgumentException() {
+        OrderOptimizer.Order order = new OrderOptimizer.Order(1L, 10.0d, today, null, null, 5L, null);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> new DepotBatchBuilder().addStock(3L, 10, 10).build(Collections.singleton(order)));
+    }
+}
@@ -0,0 +1,186 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptimizationServiceTest {
+    private final Date today = Date.from(LocalDate.now().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant());
+
+    @Test
+    void allocate_equalBatchesWhileSolving_solvesOnceAndBindsEveryAllocationToItsOrders() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OrderOptimizer optimizer = new OrderOptimizer();
+        optimizer.setSolverPolicy(problem -> new GreedyBackend(() -> release.await()));
+        List<OrderOptimizer.BlisterData> batches = new ArrayList<>();
+        List<CompletableFuture<Allocation>> allocations = new ArrayList<>();
+
+        // Act
+        try (OptimizationService service = new OptimizationService(optimizer)) {
+            for (int request = 0; request < 10; request++) {
+                OrderOptimizer.BlisterData batch = createBatch(10);
+                batches.add(batch);
+                allocations.add(service.allocate(batch));
+            }
+            release.countDown();
+            CompletableFuture.allOf(allocations.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+            // Assert
+            assertEquals(1, service.getSolveCount());
+            assertEquals(9, service.getCoalescedCount());
+        }
+        for (int request = 0; request < batches.size(); request++) {
+            Allocation allocation = allocations.get(request).get();
+            assertEquals(allocations.get(0).get().getObjective(), allocation.getObjective(), 1e-9);
+            assertSame(batches.get(request).getOrders().iterator().next(), allocation.getOrder(0));
+        }
+    }
+
+    @Test
+    void allocate_moreBatchesThanSolvePermits_solvesAtMostPermitsAtOnce() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        OrderOptimizer optimizer = new OrderOptimizer();
+        optimizer.setSolverPolicy(problem -> new GreedyBackend(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+        }));
+        List<CompletableFuture<Allocation>> allocations = new ArrayList<>();
+
+        // Act
+        try (OptimizationService service = new OptimizationService(optimizer, 2)) {
+            for (int request = 0; request < 8; request++) {
+                allocations.add(service.allocate(createBatch(request + 1)));
+            }
+            CompletableFuture.allOf(allocations.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+            // Assert
+            assertEquals(8, service.getSolveCount());
+            assertEquals(0, service.getCoalescedCount());
+        }
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    void allocate_sameOrdersInSetAndList_solvesOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OrderOptimizer optimizer = new OrderOptimizer();
+        optimizer.setSolverPolicy(problem -> new GreedyBackend(() -> release.await()));
+        List<OrderOptimizer.Order> orders = new ArrayList<>();
+        for (int index = 0; index < 5; index++) {
+            orders.add(new OrderOptimizer.Order((long) index, 10.0d + index, today, 50L, null, null, null));
+        }
+        OrderOptimizer.BlisterData list = new OrderOptimizer.BlisterData(30, 20, orders);
+        OrderOptimizer.BlisterData set = new OrderOptimizer.BlisterData(30, 20, new HashSet<>(orders));
+
+        // Act
+        try (OptimizationService service = new OptimizationService(optimizer)) {
+            CompletableFuture<Allocation> fromList = service.allocate(list);
+            CompletableFuture<Allocation> fromSet = service.allocate(set);
+            release.countDown();
+            CompletableFuture.allOf(fromList, fromSet).get(10, TimeUnit.SECONDS);
+
+            // Assert
+            assertEquals(1, service.getSolveCount());
+            assertEquals(1, service.getCoalescedCount());
+            assertEquals(fromList.get().getOrders(), fromSet.get().getOrders());
+        }
+    }
+
+    @Test
+    void allocate_ordersChangedAfterRequest_solvesRequestedOrdersAndLaterRequestAgain() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OrderOptimizer optimizer = new OrderOptimizer();
+        optimizer.setSolverPolicy(problem -> new GreedyBackend(() -> release.await()));
+        List<OrderOptimizer.Order> orders = new ArrayList<>(createBatch(5).getOrders());
+        OrderOptimizer.BlisterData batch = new OrderOptimizer.BlisterData(50, 50, orders);
+
+        // Act
+        try (OptimizationService service = new OptimizationService(optimizer)) {
+            CompletableFuture<Allocation> first = service.allocate(batch);
+            orders.add(new OrderOptimizer.Order(5L, 10.0d, today, 50L, null, null, null));
+            release.countDown();
+            Allocation allocation = first.get(10, TimeUnit.SECONDS);
+            service.allocate(createBatch(5)).get(10, TimeUnit.SECONDS);
+
+            // Assert
+            assertEquals(5, allocation.size());
+            assertEquals(2, service.getSolveCount());
+            assertEquals(0, service.getCoalescedCount());
+        }
+    }
+
+    @Test
+    void allocate_request_solvedOnVirtualThread() throws Exception {
+        AtomicBoolean virtual = new AtomicBoolean();
+        OrderOptimizer optimizer = new OrderOptimizer();
+        optimizer.setSolverPolicy(problem -> new GreedyBackend(() -> virtual.set(Thread.currentThread().isVirtual())));
+
+        // Act
+        try (OptimizationService service = new OptimizationService(optimizer)) {
+            service.allocate(createBatch(3)).get(10, TimeUnit.SECONDS);
+        }
+
+        // Assert
+        assertTrue(virtual.get());
+    }
+
+    private OrderOptimizer.BlisterData createBatch(int orderCount) {
+        OrderOptimizer.Order[] orders = new OrderOptimizer.Order[orderCount];
+        for (int index = 0; index < orderCount; index++) {
+            orders[index] = new OrderOptimizer.Order((long) index, 10.0d, today, 50L, null, null, null);
+        }
+        return new OrderOptimizer.BlisterData(50, 50, Arrays.asList(orders));
+    }
+
+    @FunctionalInterface
+    private interface Pause {
+        void await() throws InterruptedException;
+    }
+
+    /**
+     * Backend which pauses before it returns the greedy allocation.
+     */
+    private static final class GreedyBackend implements SolverBackend {
+        private final Pause pause;
+
+        GreedyBackend(Pause pause) {
+            this.pause = pause;
+        }
+
+        @Override
+        public String getName() {
+            return "greedy";
+        }
+
+        @Override
+        public boolean supports(BlisterProblem problem) {
+            return true;
+        }
+
+        @Override
+        public Allocation solve(BlisterProblem problem, long timeLimitMillis, SolveListener listener) {
+            try {
+                pause.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return Allocation.of(problem, GreedyAllocator.allocate(problem), Allocation.Status.FEASIBLE);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptimizationSessionTest {
+    private final LocalDate currentDate = LocalDate.now();
+    private final OrderOptimizer.Order orderA = new OrderOptimizer.Order(null, 20.0d, toDate(currentDate), 60L, null,
+            null, null);
+    private final OrderOptimizer.Order orderB = new OrderOptimizer.Order(null, 10.0d,
+            toDate(currentDate.plusDays(1)), 10L, null, null, null);
+
+    @Test
+    void addOrder_laterOrder_sharesOldBlisters() {
+        OptimizationSession session = new OrderOptimizer()
+                .openSession(new OrderOptimizer.BlisterData(30, 10, Collections.singleton(orderA)));
+        session.optimize();
+        assertEquals(12, orderA.getNewAmount());
+        assertEquals(8, orderA.getOldAmount());
+
+        // Act
+        session.addOrder(orderB);
+        session.optimize();
+
+        // Assert
+        assertTrue(orderA.isEnabled());
+        assertEquals(19, orderA.getNewAmount());
+        assertEquals(1, orderA.getOldAmount());
+        assertTrue(orderB.isEnabled());
+        assertEquals(1, orderB.getNewAmount());
+        assertEquals(9, orderB.getOldAmount());
+    }
+
+    @Test
+    void removeOrder_olderOrder_remainingOrderIsOptimizedAlone() {
+        OptimizationSession session = new OrderOptimizer()
+                .openSession(new OrderOptimizer.BlisterData(30, 10, Sets.newHashSet(orderA, orderB)));
+        session.optimize();
+
+        // Act
+        boolean removed = session.removeOrder(orderA);
+        session.optimize();
+
+        // Assert
+        assertTrue(removed);
+        assertEquals(Collections.singletonList(orderB), session.getOrders());
+        assertTrue(orderB.isEnabled());
+        assertEquals(1, orderB.getNewAmount());
+        assertEquals(9, orderB.getOldAmount());
+    }
+
+    @Test
+    void removeOrder_unknownOrder_returnsFalse() {
+        OptimizationSession session = new OrderOptimizer()
+                .openSession(new OrderOptimizer.BlisterData(30, 10, Collections.singleton(orderA)));
+
+        // Act
+        boolean removed = session.removeOrder(orderB);
+
+        // Assert
+        assertFalse(removed);
+    }
+
+    @Test
+    void setCapacities_noOldBlistersLeft_getAllNew() {
+        OptimizationSession session = new OrderOptimizer()
+                .openSession(new OrderOptimizer.BlisterData(30, 10, Sets.newHashSet(orderA, orderB)));
+        session.optimize();
+
+        // Act
+        session.setCapacities(30, 0);
+        session.optimize();
+
+        // Assert
+        assertEquals(20, orderA.getNewAmount());
+        assertEquals(0, orderA.getOldAmount());
+        assertEquals(10, orderB.getNewAmount());
+        assertEquals(0, orderB.getOldAmount());
+    }
+
+    @Test
+    void removeOrder_moreRemovedThanRemaining_modelIsRebuilt() {
+        OrderOptimizer.Order orderC = new OrderOptimizer.Order(null, 5.0d, toDate(currentDate.plusDays(2)), null,
+                null, null, null);
+        OptimizationSession session = new OrderOptimizer()
+                .openSession(new OrderOptimizer.BlisterData(30, 10, Sets.newHashSet(orderA, orderB, orderC)));
+        session.optimize();
+
+        // Act
+        session.removeOrder(orderA);
+        session.removeOrder(orderC);
+        session.optimize();
+
+        // Assert
+        assertEquals(Collections.singletonList(orderB), session.getOrders());
+        assertEquals(1, orderB.getNewAmount());
+        assertEquals(9, orderB.getOldAmount());
+    }
+
+    @Test
+    void optimize_changedBatch_sameObjectiveAsNewAllocation() {
+        OrderOptimizer optimizer = new OrderOptimizer();
+        optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+        List<OrderOptimizer.Order> orders = new ArrayList<>(
+                new BlisterDataGenerator(7L).generate(8, 0.6, 0.5, 30).getOrders());
+        Set<OrderOptimizer.Order> batch = new HashSet<>(orders.subList(0, 7));
+        OptimizationSession session = optimizer.openSession(new OrderOptimizer.BlisterData(40, 20, batch));
+        session.optimize();
+
+        // Act
+        session.addOrder(orders.get(7));
+        batch.add(orders.get(7));
+        session.removeOrder(orders.get(0));
+        batch.remove(orders.get(0));
+        session.setCapacities(30, 25);
+        Allocation changed = session.optimize();
+        Allocation unchanged = session.optimize();
+
+        // Assert
+        double expected = optimizer.allocate(new OrderOptimizer.BlisterData(30, 25, batch)).getObjective();
+        assertEquals(expected, changed.getObjective(), 1e-9);
+        assertEquals(expected, unchanged.getObjective(), 1e-9);
+    }
+
+    @Test
+    void optimize_timeLimitAndListenerOfOptimizer_feasibleAllocationReported() {
+        OrderOptimizer optimizer = new OrderOptimizer();
+        optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+        optimizer.setTimeLimit(1, TimeUnit.MILLISECONDS);
+        List<SolveMetrics> metrics = new ArrayList<>();
+        optimizer.setSolveListener(metrics::add);
+        OptimizationSession session = optimizer
+                .openSession(new BlisterDataGenerator(60L).generate(60, 0.8, 0.5, 30));
+
+        // Act
+        Allocation allocation = session.optimize();
+
+        // Assert
+        assertEquals(Allocation.Status.FEASIBLE, allocation.getStatus());
+        assertTrue(Double.isFinite(allocation.getGap()));
+        assertEquals(1, metrics.size());
+        assertEquals(60, metrics.get(0).getOrderCount());
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay().atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
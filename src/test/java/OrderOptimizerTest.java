@@ -1,17 +1,29 @@
 import com.google.common.collect.Sets;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +38,22 @@ class OrderOptimizerTest {
     @ParameterizedTest
     @MethodSource("blisterTest")
     void optimize_getExpected(BlisterTest testData) {
+        assertOptimized(testData);
+    }
+
+    /**
+     * Every engine and formulation solves the distinct cases of {@link #blisterTest()} once, the repetitions of the
+     * case which fails sometimes are only run for the default solver.
+     */
+    @ParameterizedTest
+    @MethodSource("solverVariantTest")
+    void optimize_solverVariant_getExpected(SolverVariant variant, BlisterTest testData) {
+        variant.configure(optimizer);
+
+        assertOptimized(testData);
+    }
+
+    private void assertOptimized(BlisterTest testData) {
         Map<OrderTest, OrderOptimizer.Order> orders = new HashMap<>();
         for (OrderTest order : testData.orders.keySet()) {
             OrderOptimizer.Order orderModel = new OrderOptimizer.Order(null, (double) order.expectedAmount,
@@ -70,7 +98,514 @@ class OrderOptimizerTest {
         assertTrue(allOldAmount <= testData.oldAmount);
     }
 
+    @Test
+    void optimizeInParallel_oneBatchFails_otherBatchesAreOptimized() {
+        LocalDate currentDate = LocalDate.now();
+        OrderOptimizer.Order first = new OrderOptimizer.Order(null, 10.0d, toDate(currentDate), null, null, null,
+                null);
+        OrderOptimizer.Order second = new OrderOptimizer.Order(null, 20.0d, toDate(currentDate), 50L, null, null,
+                null);
+        OrderOptimizer.Order broken = new OrderOptimizer.Order(null, 10.0d, null, null, null, null, null);
+        OrderOptimizer.Order brokenToo = new OrderOptimizer.Order(null, 15.0d, null, 50L, null, null, null);
+
+        OrderOptimizer.BlisterData firstData = new OrderOptimizer.BlisterData(10, 0, Collections.singleton(first));
+        OrderOptimizer.BlisterData brokenData = new OrderOptimizer.BlisterData(10, 10,
+                Sets.newHashSet(broken, brokenToo));
+        OrderOptimizer.BlisterData secondData = new OrderOptimizer.BlisterData(10, 10, Collections.singleton(second));
+
+        // Act
+        List<OrderOptimizer.BatchFailure> failures = optimizer
+                .optimizeInParallel(Arrays.asList(firstData, brokenData, secondData));
+
+        // Assert
+        assertEquals(1, failures.size());
+        assertSame(brokenData, failures.get(0).getBlisterData());
+        assertTrue(first.isEnabled());
+        assertEquals(10, first.getNewAmount());
+        assertTrue(second.isEnabled());
+        assertEquals(10, second.getNewAmount());
+        assertEquals(10, second.getOldAmount());
+    }
+
+    @Test
+    void optimize_resultCacheAndSameBatchOnLaterDays_reusesAllocation() {
+        ResultCache cache = new ResultCache(10, 1, TimeUnit.HOURS);
+        optimizer.setResultCache(cache);
+        LocalDate currentDate = LocalDate.now();
+        OrderOptimizer.Order first = new OrderOptimizer.Order(null, 20.0d, toDate(currentDate), 60L, null, null,
+                null);
+        OrderOptimizer.Order second = new OrderOptimizer.Order(null, 10.0d, toDate(currentDate.plusDays(1)), 10L,
+                null, null, null);
+        OrderOptimizer.Order laterFirst = new OrderOptimizer.Order(null, 20.0d, toDate(currentDate.plusDays(7)), 60L,
+                null, null, null);
+        OrderOptimizer.Order laterSecond = new OrderOptimizer.Order(null, 10.0d, toDate(currentDate.plusDays(9)), 10L,
+                null, null, null);
+
+        // Act
+        optimizer.optimize(Collections.singleton(new OrderOptimizer.BlisterData(30, 10,
+                Sets.newHashSet(first, second))));
+        optimizer.optimize(Collections.singleton(new OrderOptimizer.BlisterData(30, 10,
+                Sets.newHashSet(laterFirst, laterSecond))));
+
+        // Assert
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertTrue(laterFirst.isEnabled());
+        assertTrue(laterSecond.isEnabled());
+        assertEquals(first.getNewAmount(), laterFirst.getNewAmount());
+        assertEquals(second.getNewAmount(), laterSecond.getNewAmount());
+    }
+
+    @Test
+    void allocate_resultCacheAndOtherFormulation_solvesAgain() {
+        ResultCache cache = new ResultCache(10, 1, TimeUnit.HOURS);
+        optimizer.setResultCache(cache);
+        LocalDate currentDate = LocalDate.now();
+        OrderOptimizer.BlisterData data = new OrderOptimizer.BlisterData(30, 10, Sets.newHashSet(
+                new OrderOptimizer.Order(null, 20.0d, toDate(currentDate), 60L, null, null, null),
+                new OrderOptimizer.Order(null, 10.0d, toDate(currentDate.plusDays(1)), 10L, null, null, null)));
+        optimizer.allocate(data);
+        optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+
+        // Act
+        optimizer.allocate(data);
+        optimizer.setLexicographic(true);
+        optimizer.allocate(data);
+
+        // Assert
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    void allocate_sameOrdersInTwoScenarios_ordersAreNotAssigned() {
+        optimizer.setEngine(OrderOptimizer.Engine.DYNAMIC_PROGRAMMING);
+        LocalDate currentDate = LocalDate.now();
+        OrderOptimizer.Order first = new OrderOptimizer.Order(null, 20.0d, toDate(currentDate), 60L, null, null,
+                null);
+        OrderOptimizer.Order second = new OrderOptimizer.Order(null, 10.0d, toDate(currentDate.plusDays(1)), null,
+                null, null, null);
+        Set<OrderOptimizer.Order> orders = Sets.newHashSet(first, second);
+
+        // Act
+        Allocation withOld = optimizer.allocate(new OrderOptimizer.BlisterData(30, 10, orders));
+        Allocation withoutOld = optimizer.allocate(new OrderOptimizer.BlisterData(20, 0, orders));
+
+        // Assert
+        assertEquals(Arrays.asList(first, second), withOld.getOrders());
+        assertTrue(withOld.isEnabled(0));
+        assertTrue(withOld.isEnabled(1));
+        assertEquals(30, withOld.getNewAmount(0) + withOld.getOldAmount(0) + withOld.getNewAmount(1)
+                + withOld.getOldAmount(1));
+        assertEquals(Allocation.Status.OPTIMAL, withOld.getStatus());
+        assertEquals(0.0d, withOld.getGap());
+        assertTrue(withoutOld.isEnabled(0));
+        assertEquals(20, withoutOld.getNewAmount(0));
+        assertFalse(withoutOld.isEnabled(1));
+        assertEquals(0, withoutOld.getOldAmount(1));
+        assertTrue(withOld.getObjective() > withoutOld.getObjective());
+        assertFalse(first.isEnabled());
+        assertFalse(second.isEnabled());
+    }
+
+    @Test
+    void optimize_solveListener_reportsMetricsOfEverySolve() {
+        List<SolveMetrics> metrics = new ArrayList<>();
+        optimizer.setSolveListener(metrics::add);
+        optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+        LocalDate currentDate = LocalDate.now();
+        OrderOptimizer.Order first = new OrderOptimizer.Order(null, 20.0d, toDate(currentDate), 60L, null, null,
+                null);
+        OrderOptimizer.Order second = new OrderOptimizer.Order(null, 10.0d, toDate(currentDate.plusDays(1)), null,
+                null, null, null);
+        OrderOptimizer.BlisterData data = new OrderOptimizer.BlisterData(30, 10, Sets.newHashSet(first, second));
+
+        // Act
+        optimizer.optimize(Collections.singleton(data));
+        optimizer.setEngine(OrderOptimizer.Engine.DYNAMIC_PROGRAMMING);
+        optimizer.optimize(Collections.singleton(data));
+
+        // Assert
+        assertEquals(2, metrics.size());
+        SolveMetrics mip = metrics.get(0);
+        assertEquals(OjAlgoBackend.NAME, mip.getBackend());
+        assertEquals(2, mip.getOrderCount());
+        assertEquals(4, mip.getVariableCount());
+        assertEquals(6, mip.getConstraintCount());
+        assertTrue(mip.getIterations() >= 1);
+        assertTrue(mip.getState().isOptimal());
+        SolveMetrics dynamicProgramming = metrics.get(1);
+        assertEquals(DynamicProgrammingSolver.NAME, dynamicProgramming.getBackend());
+        assertEquals(2 * 31 * 11, dynamicProgramming.getIterations());
+        assertTrue(dynamicProgramming.getSolveNanos() > 0);
+    }
+
+    @Test
+    void allocate_automaticEngine_selectsBackendByBatchSize() {
+        List<String> backends = new ArrayList<>();
+        optimizer.setSolveListener(metrics -> backends.add(metrics.getBackend()));
+        optimizer.setEngine(OrderOptimizer.Engine.AUTOMATIC);
+
+        // Act
+        optimizer.allocate(createRandomBatch(5, 0.5));
+        optimizer.allocate(createRandomBatch(5000, 0.8));
+        optimizer.setSolverPolicy(problem -> new OjAlgoBackend());
+        optimizer.allocate(createRandomBatch(5, 0.5));
+
+        // Assert
+        assertEquals(Arrays.asList(DynamicProgrammingSolver.NAME, LagrangianSolver.NAME, OjAlgoBackend.NAME),
+                backends);
+    }
+
+    @Test
+    void allocate_columnarBatch_getAllocationOfOrderObjects() {
+        optimizer.setEngine(OrderOptimizer.Engine.DYNAMIC_PROGRAMMING);
+        OrderOptimizer.BlisterData data = createRandomBatch(12, 0.5);
+        List<OrderOptimizer.Order> orders = new ArrayList<>(data.getOrders());
+        int[] requestedAmounts = new int[orders.size()];
+        long[] orderingDates = new long[orders.size()];
+        short[] longtimeValues = new short[orders.size()];
+        for (int row = 0; row < orders.size(); row++) {
+            OrderOptimizer.Order order = orders.get(row);
+            requestedAmounts[row] = order.getRequestedAmount();
+            orderingDates[row] = order.getOrderingDate().getTime();
+            longtimeValues[row] = order.getLongtimeValue() != null ? order.getLongtimeValue().shortValue()
+                    : ColumnarBlisterData.NO_LONGTIME;
+        }
+        Allocation expected = optimizer.allocate(data);
+
+        // Act
+        Allocation allocation = optimizer.allocate(new ColumnarBlisterData(data.getNewAmount(), data.getOldAmount(),
+                requestedAmounts, orderingDates, longtimeValues));
+
+        // Assert
+        assertEquals(expected.getObjective(), allocation.getObjective(), 1e-9);
+        assertTrue(allocation.getOrders().isEmpty());
+        for (int index = 0; index < allocation.size(); index++) {
+            OrderOptimizer.Order order = orders.get(allocation.getRow(index));
+            assertEquals(expected.getOrder(index).getOrderingDate(), order.getOrderingDate());
+            assertEquals(expected.getOrder(index).getRequestedAmount(), order.getRequestedAmount());
+            assertEquals(expected.isEnabled(index), allocation.isEnabled(index));
+            assertEquals(expected.getNewAmount(index), allocation.getNewAmount(index));
+        }
+    }
+
+    @Test
+    void allocate_equivalenceClassesAndStandingOrders_getObjectiveOfDynamicProgramming() {
+        LocalDate currentDate = LocalDate.now();
+        List<OrderOptimizer.Order> orders = new ArrayList<>();
+        for (int week = 0; week < 4; week++) {
+            for (int copy = 0; copy < 5; copy++) {
+                orders.add(new OrderOptimizer.Order(null, 12.0d, toDate(currentDate.plusWeeks(week)), 50L, null,
+                        null, null));
+                orders.add(new OrderOptimizer.Order(null, 8.0d, toDate(currentDate.plusWeeks(week)), null, null,
+                        null, null));
+            }
+        }
+        OrderOptimizer.BlisterData data = new OrderOptimizer.BlisterData(150, 90, orders);
+        optimizer.setEngine(OrderOptimizer.Engine.DYNAMIC_PROGRAMMING);
+        Allocation optimal = optimizer.allocate(data);
+        optimizer.setEngine(OrderOptimizer.Engine.MIP);
+        optimizer.setFormulation(OrderOptimizer.Formulation.EQUIVALENCE_CLASSES);
+
+        // Act
+        Allocation allocation = optimizer.allocate(data);
+
+        // Assert
+        assertEquals(Allocation.Status.OPTIMAL, allocation.getStatus());
+        assertEquals(optimal.getObjective(), allocation.getObjective(), 1e-6);
+    }
+
+    @Test
+    void allocate_hardBatchAndTimeLimit_getFeasibleAllocationWithGap() {
+        optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+        OrderOptimizer.BlisterData data = createRandomBatch(60, 0.8);
+
+        // Act
+        Allocation allocation = optimizer.allocate(data, 1, TimeUnit.MILLISECONDS);
+
+        // Assert
+        assertFeasibleWithFiniteGap(data, allocation);
+    }
+
+    @Test
+    void setTimeLimit_hardBatch_getFeasibleAllocationWithGap() {
+        optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+        OrderOptimizer.BlisterData data = createRandomBatch(60, 0.8);
+        optimizer.setTimeLimit(1, TimeUnit.MILLISECONDS);
+
+        // Act
+        Allocation allocation = optimizer.allocate(data);
+
+        // Assert
+        assertFeasibleWithFiniteGap(data, allocation);
+    }
+
+    @Test
+    void allocate_hardBatchAndIterationLimit_getFeasibleAllocationWithGap() {
+        optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+        OrderOptimizer.BlisterData data = createRandomBatch(60, 0.8);
+        OptimizerConfig limited = new OptimizerConfig("limited", 0.0d, 1, OptimizerConfig.NO_LIMIT,
+                TimeUnit.MILLISECONDS, OptimizerConfig.DEFAULT_FULFILLMENT_WEIGHT,
+                OptimizerConfig.DEFAULT_SHORTTIME_WEIGHT, OptimizerConfig.DEFAULT_LONGTIME_WEIGHT);
+
+        // Act
+        Allocation allocation = optimizer.allocate(data, limited);
+
+        // Assert
+        assertEquals(Allocation.Status.FEASIBLE, allocation.getStatus());
+        assertTrue(allocation.getGap() > 0);
+        assertCapacitiesKept(data, allocation);
+    }
+
+    @Test
+    void optimize_orderNotFulfillable_noBlistersOnAllocationAndRequestedAmountOldOnOrder() {
+        OrderOptimizer.Order order = new OrderOptimizer.Order(null, 20.0d, toDate(LocalDate.now()), 60L, null, null,
+                null);
+        OrderOptimizer.BlisterData data = new OrderOptimizer.BlisterData(5, 5, Collections.singleton(order));
+
+        // Act
+        Allocation allocation = optimizer.allocate(data);
+        optimizer.optimize(Collections.singleton(data));
+
+        // Assert
+        assertFalse(allocation.isEnabled(0));
+        assertEquals(0, allocation.getNewAmount(0));
+        assertEquals(0, allocation.getOldAmount(0));
+        assertFalse(order.isEnabled());
+        assertEquals(0, order.getNewAmount());
+        assertEquals(20, order.getOldAmount());
+    }
+
+    @Test
+    void allocate_lagrangianAndSmallBatch_getObjectiveOfDynamicProgramming() {
+        OrderOptimizer.BlisterData data = createRandomBatch(10, 0.5);
+        optimizer.setEngine(OrderOptimizer.Engine.DYNAMIC_PROGRAMMING);
+        Allocation optimal = optimizer.allocate(data);
+        optimizer.setEngine(OrderOptimizer.Engine.LAGRANGIAN);
+
+        // Act
+        Allocation allocation = optimizer.allocate(data);
+
+        // Assert
+        assertEquals(optimal.getObjective(), allocation.getObjective(), optimal.getObjective() * 1e-4);
+        assertTrue(allocation.getObjective() <= optimal.getObjective());
+    }
+
+    @Test
+    void allocate_bulkProfile_getObjectiveWithinGapOfExact() {
+        OrderOptimizer.BlisterData data = createRandomBatch(10, 0.5);
+        optimizer.setEngine(OrderOptimizer.Engine.DYNAMIC_PROGRAMMING);
+        Allocation optimal = optimizer.allocate(data);
+        optimizer.setEngine(OrderOptimizer.Engine.MIP);
+        optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+
+        // Act
+        Allocation allocation = optimizer.allocate(data, OptimizerConfig.named("bulk"));
+
+        // Assert
+        assertTrue(allocation.getObjective() <= optimal.getObjective() + 1e-6);
+        assertTrue(allocation.getObjective()
+                >= optimal.getObjective() * (1 - OptimizerConfig.BULK.getMipGap()) - 1e-6);
+    }
+
+    @Test
+    void allocate_profileWithDoubledWeights_getDoubledObjective() {
+        OrderOptimizer.BlisterData data = createRandomBatch(10, 0.5);
+        optimizer.setEngine(OrderOptimizer.Engine.DYNAMIC_PROGRAMMING);
+        Allocation allocation = optimizer.allocate(data);
+        OptimizerConfig doubled = new OptimizerConfig("doubled", 0.0d, OptimizerConfig.NO_LIMIT,
+                OptimizerConfig.NO_LIMIT, TimeUnit.MILLISECONDS, BigDecimal.valueOf(20_000), BigDecimal.valueOf(2),
+                BigDecimal.valueOf(2));
+
+        // Act
+        Allocation doubledAllocation = optimizer.allocate(data, doubled);
+
+        // Assert
+        assertEquals(2 * allocation.getObjective(), doubledAllocation.getObjective(), 1e-6);
+        for (int index = 0; index < allocation.size(); index++) {
+            assertEquals(allocation.getNewAmount(index), doubledAllocation.getNewAmount(index));
+            assertEquals(allocation.getOldAmount(index), doubledAllocation.getOldAmount(index));
+        }
+    }
+
+    @Test
+    void allocate_lagrangianAndLargeBatch_getFeasibleAllocationWithSmallGap() {
+        OrderOptimizer.BlisterData data = createRandomBatch(5000, 0.8);
+        optimizer.setEngine(OrderOptimizer.Engine.LAGRANGIAN);
+
+        // Act
+        Allocation allocation = optimizer.allocate(data);
+
+        // Assert
+        assertTrue(allocation.getGap() < 1e-3);
+        int allNewAmount = 0;
+        int allOldAmount = 0;
+        for (int index = 0; index < allocation.size(); index++) {
+            if (!allocation.isEnabled(index)) {
+                continue;
+            }
+            OrderOptimizer.Order order = allocation.getOrder(index);
+            assertEquals(order.getRequestedAmount(), allocation.getNewAmount(index) + allocation.getOldAmount(index));
+            assertTrue(allocation.getNewAmount(index)
+                    >= BlisterProblem.minimumNewAmountOf(order.getRequestedAmount(), order.getLongtimeValue()));
+            allNewAmount += allocation.getNewAmount(index);
+            allOldAmount += allocation.getOldAmount(index);
+        }
+        assertTrue(allNewAmount <= data.getNewAmount());
+        assertTrue(allOldAmount <= data.getOldAmount());
+    }
+
+    @Test
+    void allocate_rollingHorizonAndLongBacklog_solvesOnlyTheWindowsAndGetsFeasibleAllocation() {
+        OrderOptimizer.BlisterData data = createRandomBatch(3000, 0.8);
+        optimizer.setEngine(OrderOptimizer.Engine.LAGRANGIAN);
+        Allocation nearOptimal = optimizer.allocate(data);
+        List<SolveMetrics> windows = new ArrayList<>();
+        optimizer.setSolveListener(windows::add);
+        optimizer.setEngine(OrderOptimizer.Engine.ROLLING_HORIZON);
+        optimizer.setRollingHorizon(10, 5);
+
+        // Act
+        Allocation allocation = optimizer.allocate(data);
+
+        // Assert
+        assertEquals(5, windows.size());
+        assertTrue(windows.stream().allMatch(metrics -> metrics.getOrderCount() == 10));
+        assertEquals(Allocation.Status.FEASIBLE, allocation.getStatus());
+        assertTrue(allocation.getObjective() >= 0.95 * nearOptimal.getObjective());
+        int allNewAmount = 0;
+        int allOldAmount = 0;
+        for (int index = 0; index < allocation.size(); index++) {
+            if (!allocation.isEnabled(index)) {
+                continue;
+            }
+            OrderOptimizer.Order order = allocation.getOrder(index);
+            assertEquals(order.getRequestedAmount(), allocation.getNewAmount(index) + allocation.getOldAmount(index));
+            assertTrue(allocation.getNewAmount(index)
+                    >= BlisterProblem.minimumNewAmountOf(order.getRequestedAmount(), order.getLongtimeValue()));
+            allNewAmount += allocation.getNewAmount(index);
+            allOldAmount += allocation.getOldAmount(index);
+        }
+        assertTrue(allNewAmount <= data.getNewAmount());
+        assertTrue(allOldAmount <= data.getOldAmount());
+    }
+
+    @Test
+    void optimizeAsync_cancelledDuringHardSolve_stopsBranchAndBound() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        optimizer = new OrderOptimizer(executor);
+        optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+        OrderOptimizer.BlisterData data = createRandomBatch(60, 0.8);
+        CompletableFuture<Allocation> allocation = optimizer.optimizeAsync(data);
+        Thread.sleep(200);
+
+        // Act
+        allocation.cancel(true);
+
+        // Assert
+        try {
+            // The single thread only runs the next task once the solve stopped
+            executor.submit(() -> {
+            }).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(allocation.isCancelled());
+        assertTrue(data.getOrders().stream().noneMatch(OrderOptimizer.Order::isEnabled));
+    }
+
+    @Test
+    void solve_cancelled_dynamicProgrammingAndLagrangianStop() {
+        BlisterProblem problem = BlisterProblem.of(createRandomBatch(20, 0.8));
+        SolveCancellation cancellation = new SolveCancellation();
+
+        // Act
+        cancellation.cancel();
+
+        // Assert
+        assertThrows(CancellationException.class, () -> new DynamicProgrammingSolver()
+                .solve(problem, SolverBackend.NO_TIME_LIMIT, null, cancellation));
+        assertThrows(CancellationException.class, () -> new LagrangianSolver()
+                .solve(problem, SolverBackend.NO_TIME_LIMIT, null, cancellation));
+    }
+
+    @Test
+    void optimizeStreaming_manyBatches_neverMoreThanMaxInFlightAhead() {
+        optimizer.setEngine(OrderOptimizer.Engine.DYNAMIC_PROGRAMMING);
+        LocalDate currentDate = LocalDate.now();
+        List<OrderOptimizer.BlisterData> batches = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            OrderOptimizer.Order order = new OrderOptimizer.Order(null, 10.0d + i, toDate(currentDate), null, null,
+                    null, null);
+            batches.add(new OrderOptimizer.BlisterData(20, 0, Collections.singleton(order)));
+        }
+        int[] pulled = new int[1];
+        Iterator<OrderOptimizer.BlisterData> source = new Iterator<OrderOptimizer.BlisterData>() {
+            private final Iterator<OrderOptimizer.BlisterData> delegate = batches.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public OrderOptimizer.BlisterData next() {
+                pulled[0]++;
+                return delegate.next();
+            }
+        };
+
+        // Act
+        Iterator<OrderOptimizer.BatchResult> results = optimizer.optimizeStreaming(source, 3).iterator();
+
+        // Assert
+        int consumed = 0;
+        while (results.hasNext()) {
+            OrderOptimizer.BatchResult result = results.next();
+            consumed++;
+            assertTrue(pulled[0] - consumed < 3);
+            assertTrue(result.isSuccessful());
+            assertTrue(result.getBlisterData().getOrders().iterator().next().isEnabled());
+        }
+        assertEquals(10, consumed);
+    }
+
+    private static void assertFeasibleWithFiniteGap(OrderOptimizer.BlisterData data, Allocation allocation) {
+        assertEquals(Allocation.Status.FEASIBLE, allocation.getStatus());
+        assertTrue(allocation.getGap() >= 0);
+        assertTrue(Double.isFinite(allocation.getGap()));
+        assertCapacitiesKept(data, allocation);
+    }
+
+    private static void assertCapacitiesKept(OrderOptimizer.BlisterData data, Allocation allocation) {
+        int allNewAmount = 0;
+        int allOldAmount = 0;
+        for (int index = 0; index < allocation.size(); index++) {
+            allNewAmount += allocation.getNewAmount(index);
+            allOldAmount += allocation.getOldAmount(index);
+        }
+        assertTrue(allNewAmount <= data.getNewAmount());
+        assertTrue(allOldAmount <= data.getOldAmount());
+    }
+
+    private static Stream<Arguments> solverVariantTest() {
+        List<Arguments> distinct = Stream.concat(fixedBlisterTest(), optimize_this_test_fails_sometimes_in_44_0_0()
+                .limit(1)).collect(Collectors.toList());
+        return Arrays.stream(SolverVariant.values())
+                .flatMap(variant -> distinct.stream().map(arguments -> Arguments.of(variant, arguments.get()[0])));
+    }
+
     private static Stream<Arguments> blisterTest() {
+        Stream<Arguments> arguments = fixedBlisterTest();
+
+        Stream<Arguments> argumentsFailsIn4400 = optimize_this_test_fails_sometimes_in_44_0_0();
+        arguments = Stream.concat(arguments, argumentsFailsIn4400);
+
+        return arguments;
+    }
+
+    private static Stream<Arguments> fixedBlisterTest() {
         Stream<Arguments> arguments = optimize_noOldGivenAndRequireAllNewWithAllPossiblePercentages_getAllNew();
         Stream<Arguments> arguments2 = Stream.of(
                 Arguments.of(optimize_noNeedForNewBlisterAndEnoughOldAvailable_getAllOld()),
@@ -105,12 +640,7 @@ class OrderOptimizerTest {
                 Arguments.of(optimize_noOrderIsFulfillable_allDisabled()),
                 Arguments.of(optimize_this_test_is_wrong_since_45_0_0())
         );
-        arguments = Stream.concat(arguments, arguments2);
-
-        Stream<Arguments> argumentsFailsIn4400 = optimize_this_test_fails_sometimes_in_44_0_0();
-        arguments = Stream.concat(arguments, argumentsFailsIn4400);
-
-        return arguments;
+        return Stream.concat(arguments, arguments2);
     }
 
     private static BlisterTest optimize_this_test_is_wrong_since_45_0_0() {
@@ -591,10 +1121,45 @@ class OrderOptimizerTest {
         return new BlisterTest(7, 1000, orders, Sets.newHashSet(orderA, orderB, orderC));
     }
 
+    /**
+     * @param capacityShare new and old blisters available as share of the requested amount of all orders
+     */
+    private static OrderOptimizer.BlisterData createRandomBatch(int orderCount, double capacityShare) {
+        return new BlisterDataGenerator(orderCount).generate(orderCount, capacityShare, 0.5, 30);
+    }
+
     private static Date toDate(LocalDate date) {
         return Date.from(date.atStartOfDay().atZone(ZoneId.systemDefault()).toInstant());
     }
 
+    private enum SolverVariant {
+        DYNAMIC_PROGRAMMING(optimizer -> optimizer.setEngine(OrderOptimizer.Engine.DYNAMIC_PROGRAMMING)),
+        BOUNDED_NEW_COUNT(optimizer -> optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT)),
+        WARM_START(optimizer -> {
+            optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+            optimizer.setWarmStartEnabled(true);
+        }),
+        EQUIVALENCE_CLASSES(optimizer -> optimizer.setFormulation(OrderOptimizer.Formulation.EQUIVALENCE_CLASSES)),
+        DOMINANCE_CUTS(optimizer -> {
+            optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+            optimizer.setDominanceCutsEnabled(true);
+        }),
+        LEXICOGRAPHIC(optimizer -> {
+            optimizer.setFormulation(OrderOptimizer.Formulation.BOUNDED_NEW_COUNT);
+            optimizer.setLexicographic(true);
+        });
+
+        private final Consumer<OrderOptimizer> configuration;
+
+        SolverVariant(Consumer<OrderOptimizer> configuration) {
+            this.configuration = configuration;
+        }
+
+        void configure(OrderOptimizer optimizer) {
+            configuration.accept(optimizer);
+        }
+    }
+
     private static class BlisterTest {
         private final int newAmount;
         private final int oldAmount;